@@ -0,0 +1,53 @@
+package de.unibi.agbi.biodwh2.neo4j.importer;
+
+import org.neo4j.driver.exceptions.ClientException;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Isolates the elements of a batch rejected by the server by splitting the failing batch in halves until single
+ * elements remain. Only errors caused by the written data are isolated. All other client errors, such as missing
+ * permissions or databases, would fail for every element and are rethrown.
+ */
+final class BatchFailureIsolator {
+    private static final Set<String> DATA_ERROR_CODES = Set.of("Neo.ClientError.Statement.TypeError",
+                                                                "Neo.ClientError.Statement.ArgumentError",
+                                                                "Neo.ClientError.Statement.ArithmeticError",
+                                                                "Neo.ClientError.Schema.ConstraintValidationFailed");
+
+    private BatchFailureIsolator() {
+    }
+
+    static boolean isDataError(final ClientException e) {
+        return DATA_ERROR_CODES.contains(e.code());
+    }
+
+    /**
+     * @param writer            writes and commits the given elements in a single transaction
+     * @param committedConsumer receives the result of every committed part of the batch
+     * @param failedConsumer    receives every isolated element together with the error message
+     */
+    static <T, R> void write(final List<T> batch, final Function<List<T>, R> writer,
+                             final Consumer<R> committedConsumer, final BiConsumer<T, String> failedConsumer) {
+        final R result;
+        try {
+            result = writer.apply(batch);
+        } catch (ClientException e) {
+            if (!isDataError(e))
+                throw e;
+            if (batch.size() == 1) {
+                failedConsumer.accept(batch.get(0), e.getMessage());
+            } else {
+                final int half = batch.size() / 2;
+                write(batch.subList(0, half), writer, committedConsumer, failedConsumer);
+                write(batch.subList(half, batch.size()), writer, committedConsumer, failedConsumer);
+            }
+            return;
+        }
+        committedConsumer.accept(result);
+    }
+}
@@ -0,0 +1,22 @@
+package de.unibi.agbi.biodwh2.neo4j.importer;
+
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Writes elements which couldn't be imported as JSON lines together with the reason of the failure.
+ */
+final class DeadLetterWriter extends JsonLinesWriter {
+    DeadLetterWriter(final Path filePath) {
+        super(filePath);
+    }
+
+    void write(final String type, final Map<String, Object> element, final String reason) {
+        final var row = new LinkedHashMap<String, Object>();
+        row.put("type", type);
+        row.putAll(element);
+        row.put("reason", reason);
+        write(row);
+    }
+}
@@ -0,0 +1,98 @@
+package de.unibi.agbi.biodwh2.neo4j.importer;
+
+import de.unibi.agbi.biodwh2.neo4j.importer.model.graphml.PropertyKey;
+
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Binary columnar representation of a GraphML file used to repeat imports without parsing XML.
+ * <p>
+ * Layout (big endian): magic, format version, node and edge count, the property key table, the label dictionary and
+ * a directory of named columns with offset and length relative to the end of the header, followed by the column
+ * data. Label columns store dictionary indices, edge endpoint columns store node row indices (-1 if the node is
+ * missing) and property columns are sparse and store the row index before each typed value. Values which don't match
+ * their type are stored as raw text with a negative row index, so the import can report them like the GraphML import.
+ */
+final class GraphCacheFormat {
+    static final int MAGIC = 0x474D4C43;
+    static final int FORMAT_VERSION = 2;
+    static final String NODE_LABEL_COLUMN = "node.label";
+    static final String NODE_ID_COLUMN = "node.id";
+    static final String EDGE_LABEL_COLUMN = "edge.label";
+    static final String EDGE_ID_COLUMN = "edge.id";
+    static final String EDGE_SOURCE_COLUMN = "edge.source";
+    static final String EDGE_TARGET_COLUMN = "edge.target";
+
+    private GraphCacheFormat() {
+    }
+
+    static String getPropertyColumnName(final String forType, final int propertyKeyIndex) {
+        return forType + ".property." + propertyKeyIndex;
+    }
+
+    static int encodeInvalidValueRow(final int row) {
+        return -row - 1;
+    }
+
+    static int decodeInvalidValueRow(final int encodedRow) {
+        return -encodedRow - 1;
+    }
+
+    static boolean isCacheFile(final Path filePath) {
+        try (final InputStream stream = Files.newInputStream(filePath);
+             final var dataStream = new DataInputStream(stream)) {
+            return dataStream.readInt() == MAGIC;
+        } catch (IOException ignored) {
+            return false;
+        }
+    }
+
+    static void writeString(final DataOutput output, final String value) throws IOException {
+        if (value == null) {
+            output.writeInt(-1);
+        } else {
+            final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            output.writeInt(bytes.length);
+            output.write(bytes);
+        }
+    }
+
+    static String readString(final DataInputStream input) throws IOException {
+        final int length = input.readInt();
+        if (length < 0)
+            return null;
+        final byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static void writeValue(final DataOutput output, final PropertyKey key, final Object value) throws IOException {
+        if (key.attributeList() != null) {
+            final List<?> values = (List<?>) value;
+            output.writeInt(values.size());
+            for (final Object element : values)
+                writeScalarValue(output, key.attributeList(), element);
+        } else
+            writeScalarValue(output, key.attributeType(), value);
+    }
+
+    private static void writeScalarValue(final DataOutput output, final String type,
+                                         final Object value) throws IOException {
+        switch (type.toLowerCase(Locale.US)) {
+            case "boolean" -> output.writeBoolean((Boolean) value);
+            case "int" -> output.writeInt((Integer) value);
+            case "long" -> output.writeLong((Long) value);
+            case "float" -> output.writeFloat((Float) value);
+            case "double" -> output.writeDouble((Double) value);
+            default -> writeString(output, (String) value);
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package de.unibi.agbi.biodwh2.neo4j.importer;
+
+import de.unibi.agbi.biodwh2.neo4j.importer.model.graphml.PropertyKey;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+import static de.unibi.agbi.biodwh2.neo4j.importer.GraphCacheFormat.*;
+
+/**
+ * Reads nodes and edges sequentially from a file written by {@link GraphCacheWriter}. All columns are read through
+ * memory-mapped windows of the file.
+ */
+final class GraphCacheReader {
+    private static final long DEFAULT_WINDOW_SIZE = 64L * 1024 * 1024;
+
+    private final Path filePath;
+    private final long windowSize;
+    private final long nodeCount;
+    private final long edgeCount;
+    private final List<PropertyKey> propertyKeys = new ArrayList<>();
+    private final List<String> labels = new ArrayList<>();
+    private final Map<String, long[]> columnRegions = new HashMap<>();
+
+    GraphCacheReader(final Path filePath) throws IOException {
+        this(filePath, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * @param windowSize size of the memory-mapped windows, values spanning multiple windows are mapped as a whole
+     */
+    GraphCacheReader(final Path filePath, final long windowSize) throws IOException {
+        this.filePath = filePath;
+        this.windowSize = windowSize;
+        try (final var input = new CountingInputStream(new BufferedInputStream(Files.newInputStream(filePath)));
+             final var header = new DataInputStream(input)) {
+            if (header.readInt() != MAGIC)
+                throw new IOException("File '" + filePath + "' is not a graph cache file");
+            final int formatVersion = header.readInt();
+            if (formatVersion != FORMAT_VERSION)
+                throw new IOException("Unsupported graph cache format version " + formatVersion);
+            nodeCount = header.readLong();
+            edgeCount = header.readLong();
+            final int propertyKeyCount = header.readInt();
+            for (int i = 0; i < propertyKeyCount; i++)
+                propertyKeys.add(new PropertyKey(readString(header), readString(header), readString(header),
+                                                 readString(header), readString(header)));
+            final int labelCount = header.readInt();
+            for (int i = 0; i < labelCount; i++)
+                labels.add(readString(header));
+            final int columnCount = header.readInt();
+            final var regions = new LinkedHashMap<String, long[]>();
+            for (int i = 0; i < columnCount; i++)
+                regions.put(readString(header), new long[]{header.readLong(), header.readLong()});
+            final long dataStart = input.count;
+            for (final var entry : regions.entrySet())
+                columnRegions.put(entry.getKey(), new long[]{dataStart + entry.getValue()[0], entry.getValue()[1]});
+        }
+    }
+
+    long getNodeCount() {
+        return nodeCount;
+    }
+
+    long getEdgeCount() {
+        return edgeCount;
+    }
+
+    void forEachNode(final NodeHandler handler) throws IOException {
+        try (final FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            final ColumnReader labelColumn = openColumn(channel, NODE_LABEL_COLUMN);
+            final ColumnReader idColumn = openColumn(channel, NODE_ID_COLUMN);
+            final List<PropertyColumn> propertyColumns = openPropertyColumns(channel, "node");
+            for (int row = 0; row < nodeCount; row++) {
+                final String nodeLabels = getLabel(labelColumn.readInt());
+                final String id = idColumn.readString();
+                final var properties = new HashMap<String, Object>();
+                handler.handle(row, id, nodeLabels, properties, readProperties(propertyColumns, row, properties));
+            }
+        }
+    }
+
+    void forEachEdge(final EdgeHandler handler) throws IOException {
+        try (final FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            final String[] nodeIds = readNodeIds(channel);
+            final ColumnReader labelColumn = openColumn(channel, EDGE_LABEL_COLUMN);
+            final ColumnReader idColumn = openColumn(channel, EDGE_ID_COLUMN);
+            final ColumnReader sourceColumn = openColumn(channel, EDGE_SOURCE_COLUMN);
+            final ColumnReader targetColumn = openColumn(channel, EDGE_TARGET_COLUMN);
+            final List<PropertyColumn> propertyColumns = openPropertyColumns(channel, "edge");
+            for (int row = 0; row < edgeCount; row++) {
+                final String label = getLabel(labelColumn.readInt());
+                final String id = idColumn.readString();
+                final int source = sourceColumn.readInt();
+                final int target = targetColumn.readInt();
+                final var properties = new HashMap<String, Object>();
+                final InvalidPropertyValueException invalidValue = readProperties(propertyColumns, row, properties);
+                handler.handle(id, label, source, source >= 0 ? nodeIds[source] : null, target,
+                               target >= 0 ? nodeIds[target] : null, properties, invalidValue);
+            }
+        }
+    }
+
+    private String[] readNodeIds(final FileChannel channel) throws IOException {
+        if (nodeCount > Integer.MAX_VALUE)
+            throw new IOException("Graph cache contains too many nodes");
+        final String[] nodeIds = new String[(int) nodeCount];
+        final ColumnReader idColumn = openColumn(channel, NODE_ID_COLUMN);
+        for (int i = 0; i < nodeIds.length; i++)
+            nodeIds[i] = idColumn.readString();
+        return nodeIds;
+    }
+
+    private String getLabel(final int index) {
+        return index >= 0 ? labels.get(index) : null;
+    }
+
+    private ColumnReader openColumn(final FileChannel channel, final String name) throws IOException {
+        final long[] region = columnRegions.get(name);
+        if (region == null)
+            throw new IOException("Graph cache column '" + name + "' is missing");
+        return new ColumnReader(channel, region[0], region[1], windowSize);
+    }
+
+    private List<PropertyColumn> openPropertyColumns(final FileChannel channel,
+                                                     final String forType) throws IOException {
+        final var result = new ArrayList<PropertyColumn>();
+        for (int i = 0; i < propertyKeys.size(); i++) {
+            final String name = getPropertyColumnName(forType, i);
+            if (columnRegions.containsKey(name))
+                result.add(new PropertyColumn(propertyKeys.get(i), openColumn(channel, name)));
+        }
+        return result;
+    }
+
+    /**
+     * Reads the values of all columns in the row, so the columns stay aligned even if a value is invalid.
+     *
+     * @return the first value of the row which didn't match its type during the conversion or null
+     */
+    private InvalidPropertyValueException readProperties(final List<PropertyColumn> propertyColumns, final int row,
+                                                         final Map<String, Object> properties) throws IOException {
+        InvalidPropertyValueException invalidValue = null;
+        for (final PropertyColumn column : propertyColumns) {
+            if (column.nextRow == row) {
+                if (column.nextValueInvalid) {
+                    final String rawValue = column.reader.readString();
+                    if (invalidValue == null)
+                        invalidValue = getInvalidValue(column.key, rawValue);
+                } else
+                    properties.put(column.key.attributeName(), column.readValue());
+                column.advance();
+            }
+        }
+        return invalidValue;
+    }
+
+    private static InvalidPropertyValueException getInvalidValue(final PropertyKey key, final String rawValue) {
+        try {
+            GraphMLReader.parsePropertyValue(key, rawValue);
+        } catch (InvalidPropertyValueException e) {
+            return e;
+        }
+        return new InvalidPropertyValueException(key, rawValue, null);
+    }
+
+    /**
+     * Node rows are passed, so nodes can be mapped without hashing their ids.
+     */
+    interface NodeHandler {
+        void handle(int row, String id, String labels, Map<String, Object> properties,
+                    InvalidPropertyValueException invalidValue);
+    }
+
+    /**
+     * Source and target are passed as node rows, -1 if the node is missing, and their GraphML ids.
+     */
+    interface EdgeHandler {
+        void handle(String id, String label, int sourceRow, String source, int targetRow, String target,
+                    Map<String, Object> properties, InvalidPropertyValueException invalidValue);
+    }
+
+    private static final class PropertyColumn {
+        final PropertyKey key;
+        final ColumnReader reader;
+        int nextRow;
+        boolean nextValueInvalid;
+
+        PropertyColumn(final PropertyKey key, final ColumnReader reader) throws IOException {
+            this.key = key;
+            this.reader = reader;
+            advance();
+        }
+
+        void advance() throws IOException {
+            nextRow = reader.hasRemaining() ? reader.readInt() : Integer.MAX_VALUE;
+            nextValueInvalid = nextRow < 0;
+            if (nextValueInvalid)
+                nextRow = decodeInvalidValueRow(nextRow);
+        }
+
+        Object readValue() throws IOException {
+            if (key.attributeList() != null) {
+                final int size = reader.readInt();
+                final var values = new ArrayList<>(size);
+                for (int i = 0; i < size; i++)
+                    values.add(readScalarValue(key.attributeList()));
+                return values;
+            }
+            return readScalarValue(key.attributeType());
+        }
+
+        private Object readScalarValue(final String type) throws IOException {
+            return switch (type.toLowerCase(Locale.US)) {
+                case "boolean" -> reader.readByte() != 0;
+                case "int" -> reader.readInt();
+                case "long" -> reader.readLong();
+                case "float" -> reader.readFloat();
+                case "double" -> reader.readDouble();
+                default -> reader.readString();
+            };
+        }
+    }
+
+    /**
+     * Sequential reader of a single column. The column is mapped in windows, so columns larger than the maximum
+     * buffer size can be read as well.
+     */
+    private static final class ColumnReader {
+        private final FileChannel channel;
+        private final long end;
+        private final long windowSize;
+        private long bufferStart;
+        private MappedByteBuffer buffer;
+
+        ColumnReader(final FileChannel channel, final long offset, final long length,
+                     final long windowSize) throws IOException {
+            this.channel = channel;
+            this.windowSize = windowSize;
+            end = offset + length;
+            map(offset, 0);
+        }
+
+        private void map(final long position, final int minimumSize) throws IOException {
+            final long size = Math.min(Math.max(windowSize, minimumSize), end - position);
+            if (size < minimumSize)
+                throw new IOException("Unexpected end of graph cache column");
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+            bufferStart = position;
+        }
+
+        private void ensureRemaining(final int bytes) throws IOException {
+            if (buffer.remaining() < bytes)
+                map(bufferStart + buffer.position(), bytes);
+        }
+
+        boolean hasRemaining() {
+            return bufferStart + buffer.position() < end;
+        }
+
+        byte readByte() throws IOException {
+            ensureRemaining(Byte.BYTES);
+            return buffer.get();
+        }
+
+        int readInt() throws IOException {
+            ensureRemaining(Integer.BYTES);
+            return buffer.getInt();
+        }
+
+        long readLong() throws IOException {
+            ensureRemaining(Long.BYTES);
+            return buffer.getLong();
+        }
+
+        float readFloat() throws IOException {
+            ensureRemaining(Float.BYTES);
+            return buffer.getFloat();
+        }
+
+        double readDouble() throws IOException {
+            ensureRemaining(Double.BYTES);
+            return buffer.getDouble();
+        }
+
+        String readString() throws IOException {
+            final int length = readInt();
+            if (length < 0)
+                return null;
+            ensureRemaining(length);
+            final byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        long count;
+
+        CountingInputStream(final InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int result = super.read();
+            if (result >= 0)
+                count++;
+            return result;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            final int result = super.read(b, off, len);
+            if (result > 0)
+                count += result;
+            return result;
+        }
+    }
+}
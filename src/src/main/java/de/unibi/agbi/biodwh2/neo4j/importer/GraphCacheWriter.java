@@ -0,0 +1,232 @@
+package de.unibi.agbi.biodwh2.neo4j.importer;
+
+import de.unibi.agbi.biodwh2.neo4j.importer.model.graphml.PropertyKey;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.StartElement;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+import static de.unibi.agbi.biodwh2.neo4j.importer.GraphCacheFormat.*;
+import static de.unibi.agbi.biodwh2.neo4j.importer.GraphMLReader.getElementAttribute;
+
+/**
+ * Converts a GraphML file into the binary columnar cache format described in {@link GraphCacheFormat}. Every column
+ * is first streamed into its own temporary file next to the output file and all columns are concatenated once the
+ * GraphML file was read completely. If the GraphML file can't be read completely, the conversion fails and no output
+ * file is written, so a partial graph can't be reused by accident.
+ */
+final class GraphCacheWriter {
+    private static final Logger LOGGER = LogManager.getLogger(GraphCacheWriter.class);
+    private static final int MAX_LOGGED_INVALID_VALUES = 10;
+
+    private final GraphMLReader graphMLReader;
+    private final List<PropertyKey> propertyKeys = new ArrayList<>();
+    private final Map<PropertyKey, Integer> propertyKeyIndices = new HashMap<>();
+    private final Map<String, Integer> labelIndices = new LinkedHashMap<>();
+    private final Map<String, Column> columns = new LinkedHashMap<>();
+    private Path tempDirectory;
+    private long invalidValueCount;
+    private String readError;
+
+    GraphCacheWriter(final GraphMLReader graphMLReader) {
+        this.graphMLReader = graphMLReader;
+    }
+
+    void convert(final Path outputFilePath) throws IOException {
+        final Path outputDirectory = outputFilePath.toAbsolutePath().getParent();
+        tempDirectory = Files.createTempDirectory(outputDirectory, "graph-cache");
+        final Path tempCacheFilePath = tempDirectory.resolve("cache");
+        graphMLReader.setReadErrorListener(message -> {
+            if (readError == null)
+                readError = message;
+        });
+        try {
+            final Map<String, PropertyKey> propertyKeyNameMap = graphMLReader.readPropertyKeys();
+            checkReadError();
+            for (final PropertyKey key : propertyKeyNameMap.values())
+                getPropertyKeyIndex(key);
+            final Map<String, Integer> nodeIdRowMap = new HashMap<>();
+            final long nodeCount = writeNodeColumns(propertyKeyNameMap, nodeIdRowMap);
+            checkReadError();
+            final long edgeCount = writeEdgeColumns(propertyKeyNameMap, nodeIdRowMap);
+            checkReadError();
+            for (final Column column : columns.values())
+                column.output.close();
+            writeCacheFile(tempCacheFilePath, nodeCount, edgeCount);
+            Files.move(tempCacheFilePath, outputFilePath, StandardCopyOption.REPLACE_EXISTING);
+            if (invalidValueCount > 0)
+                LOGGER.warn("{} property values didn't match their type. They are kept and reported during the import",
+                            invalidValueCount);
+            if (LOGGER.isInfoEnabled())
+                LOGGER.info("Converted {} nodes and {} edges into '{}'", nodeCount, edgeCount, outputFilePath);
+        } finally {
+            for (final Column column : columns.values()) {
+                column.output.close();
+                Files.deleteIfExists(column.filePath);
+            }
+            Files.deleteIfExists(tempCacheFilePath);
+            Files.deleteIfExists(tempDirectory);
+            graphMLReader.setReadErrorListener(null);
+        }
+    }
+
+    private void checkReadError() throws IOException {
+        if (readError != null)
+            throw new IOException("Failed to read GraphML file completely: " + readError);
+    }
+
+    private int getPropertyKeyIndex(final PropertyKey key) {
+        return propertyKeyIndices.computeIfAbsent(key, k -> {
+            propertyKeys.add(k);
+            return propertyKeys.size() - 1;
+        });
+    }
+
+    private int getLabelIndex(final String label) {
+        if (label == null)
+            return -1;
+        return labelIndices.computeIfAbsent(label, k -> labelIndices.size());
+    }
+
+    private DataOutputStream getColumn(final String name) throws IOException {
+        Column column = columns.get(name);
+        if (column == null) {
+            column = new Column(tempDirectory.resolve(columns.size() + ".column"));
+            columns.put(name, column);
+        }
+        return column.output;
+    }
+
+    private long writeNodeColumns(final Map<String, PropertyKey> propertyKeyNameMap,
+                                  final Map<String, Integer> nodeIdRowMap) throws IOException {
+        final DataOutputStream labelColumn = getColumn(NODE_LABEL_COLUMN);
+        final DataOutputStream idColumn = getColumn(NODE_ID_COLUMN);
+        final var rowCount = new int[1];
+        handleAllElementsWithTag("node", (reader, startElement) -> {
+            final int row = rowCount[0]++;
+            final String id = getElementAttribute(startElement, "id");
+            nodeIdRowMap.put(id, row);
+            labelColumn.writeInt(getLabelIndex(getElementAttribute(startElement, "labels")));
+            writeString(idColumn, id);
+            writeProperties("node", id, row, graphMLReader.collectRawNodeOrEdgeProperties(reader, propertyKeyNameMap,
+                                                                                          "node"));
+        });
+        return rowCount[0];
+    }
+
+    private long writeEdgeColumns(final Map<String, PropertyKey> propertyKeyNameMap,
+                                  final Map<String, Integer> nodeIdRowMap) throws IOException {
+        final DataOutputStream labelColumn = getColumn(EDGE_LABEL_COLUMN);
+        final DataOutputStream idColumn = getColumn(EDGE_ID_COLUMN);
+        final DataOutputStream sourceColumn = getColumn(EDGE_SOURCE_COLUMN);
+        final DataOutputStream targetColumn = getColumn(EDGE_TARGET_COLUMN);
+        final var rowCount = new int[1];
+        handleAllElementsWithTag("edge", (reader, startElement) -> {
+            final int row = rowCount[0]++;
+            final String id = getElementAttribute(startElement, "id");
+            labelColumn.writeInt(getLabelIndex(getElementAttribute(startElement, "label")));
+            writeString(idColumn, id);
+            sourceColumn.writeInt(nodeIdRowMap.getOrDefault(getElementAttribute(startElement, "source"), -1));
+            targetColumn.writeInt(nodeIdRowMap.getOrDefault(getElementAttribute(startElement, "target"), -1));
+            writeProperties("edge", id, row, graphMLReader.collectRawNodeOrEdgeProperties(reader, propertyKeyNameMap,
+                                                                                          "edge"));
+        });
+        return rowCount[0];
+    }
+
+    private void handleAllElementsWithTag(final String tagName, final ElementWriter writer) throws IOException {
+        final var exception = new IOException[1];
+        graphMLReader.handleAllElementsWithTag(tagName, (reader, startElement) -> {
+            if (exception[0] == null) {
+                try {
+                    writer.write(reader, startElement);
+                } catch (IOException e) {
+                    exception[0] = e;
+                }
+            }
+        });
+        if (exception[0] != null)
+            throw exception[0];
+    }
+
+    private void writeProperties(final String forType, final String id, final int row,
+                                 final Map<PropertyKey, String> properties) throws IOException {
+        for (final var entry : properties.entrySet()) {
+            final PropertyKey key = entry.getKey();
+            final Object value;
+            try {
+                value = GraphMLReader.parsePropertyValue(key, entry.getValue());
+            } catch (InvalidPropertyValueException e) {
+                if (++invalidValueCount <= MAX_LOGGED_INVALID_VALUES && LOGGER.isWarnEnabled())
+                    LOGGER.warn("Invalid value '{}' of {} '{}' property '{}'", entry.getValue(), forType, id,
+                                key.attributeName());
+                final DataOutputStream column = getColumn(getPropertyColumnName(forType, getPropertyKeyIndex(key)));
+                column.writeInt(encodeInvalidValueRow(row));
+                writeString(column, entry.getValue());
+                continue;
+            }
+            if (value == null)
+                continue;
+            final DataOutputStream column = getColumn(getPropertyColumnName(forType, getPropertyKeyIndex(key)));
+            column.writeInt(row);
+            writeValue(column, key, value);
+        }
+    }
+
+    private void writeCacheFile(final Path outputFilePath, final long nodeCount,
+                                final long edgeCount) throws IOException {
+        final var headerBytes = new ByteArrayOutputStream();
+        try (final var header = new DataOutputStream(headerBytes)) {
+            header.writeInt(MAGIC);
+            header.writeInt(FORMAT_VERSION);
+            header.writeLong(nodeCount);
+            header.writeLong(edgeCount);
+            header.writeInt(propertyKeys.size());
+            for (final PropertyKey key : propertyKeys) {
+                writeString(header, key.id());
+                writeString(header, key.forType());
+                writeString(header, key.attributeName());
+                writeString(header, key.attributeType());
+                writeString(header, key.attributeList());
+            }
+            header.writeInt(labelIndices.size());
+            for (final String label : labelIndices.keySet())
+                writeString(header, label);
+            header.writeInt(columns.size());
+            long offset = 0;
+            for (final var entry : columns.entrySet()) {
+                final long length = Files.size(entry.getValue().filePath);
+                writeString(header, entry.getKey());
+                header.writeLong(offset);
+                header.writeLong(length);
+                offset += length;
+            }
+        }
+        try (final OutputStream output = new BufferedOutputStream(Files.newOutputStream(outputFilePath))) {
+            headerBytes.writeTo(output);
+            for (final Column column : columns.values())
+                Files.copy(column.filePath, output);
+        }
+    }
+
+    private interface ElementWriter {
+        void write(XMLEventReader reader, StartElement startElement) throws IOException, XMLStreamException;
+    }
+
+    private static final class Column {
+        final Path filePath;
+        final DataOutputStream output;
+
+        Column(final Path filePath) throws IOException {
+            this.filePath = filePath;
+            output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(filePath)));
+        }
+    }
+}
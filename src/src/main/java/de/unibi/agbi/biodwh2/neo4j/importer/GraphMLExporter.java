@@ -0,0 +1,369 @@
+package de.unibi.agbi.biodwh2.neo4j.importer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.neo4j.driver.Driver;
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Result;
+import org.neo4j.driver.Session;
+import org.neo4j.driver.Value;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exports all nodes and relationships of a Neo4j database into the GraphML dialect read by the importer. The id
+ * space of nodes and relationships is split into ranges which are read in pages on multiple sessions in parallel.
+ * Every range is streamed into its own part file and the parts are concatenated behind the {@code <key>} definitions
+ * once all property types are known, so memory usage doesn't depend on the size of the graph. Part files contain
+ * multiple top level elements, so the structure validation of the part writers is disabled.
+ */
+final class GraphMLExporter {
+    private static final Logger LOGGER = LogManager.getLogger(GraphMLExporter.class);
+    private static final String WOODSTOX_VALIDATE_STRUCTURE = "com.ctc.wstx.outputValidateStructure";
+    private static final String NODE_LABELS_KEY = "labels";
+    private static final String EDGE_LABEL_KEY = "label";
+    private static final long PAGE_SIZE = 10000;
+    private static final int RANGES_PER_THREAD = 4;
+    private static final String NODE_PAGE_QUERY =
+            "UNWIND range($from, $to) AS nodeId MATCH (n) WHERE id(n) = nodeId\n" +
+            "RETURN id(n) AS id, labels(n) AS labels, properties(n) AS properties ORDER BY id";
+    private static final String EDGE_PAGE_QUERY =
+            "UNWIND range($from, $to) AS edgeId MATCH ()-[r]->() WHERE id(r) = edgeId\n" +
+            "RETURN id(r) AS id, type(r) AS label, id(startNode(r)) AS source, id(endNode(r)) AS target,\n" +
+            "properties(r) AS properties ORDER BY id";
+
+    private final Driver driver;
+    private final int threadCount;
+    private final XMLOutputFactory outputFactory = XMLOutputFactory.newInstance();
+    private final XMLOutputFactory partOutputFactory = XMLOutputFactory.newInstance();
+    private final PropertyKeys nodePropertyKeys = new PropertyKeys("n");
+    private final PropertyKeys edgePropertyKeys = new PropertyKeys("e");
+    private Path tempDirectory;
+
+    GraphMLExporter(final Driver driver, final int threadCount) {
+        this.driver = driver;
+        this.threadCount = Math.max(1, threadCount);
+        if (partOutputFactory.isPropertySupported(WOODSTOX_VALIDATE_STRUCTURE))
+            partOutputFactory.setProperty(WOODSTOX_VALIDATE_STRUCTURE, false);
+    }
+
+    void export(final Path outputFilePath) throws IOException {
+        tempDirectory = Files.createTempDirectory(outputFilePath.toAbsolutePath().getParent(), "graphml-export");
+        final var partFiles = new ArrayList<Path>();
+        final ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            partFiles.addAll(exportElements(executor, "node", "MATCH (n) RETURN count(n)",
+                                            "MATCH (n) RETURN min(id(n)), max(id(n))", NODE_PAGE_QUERY,
+                                            (writer, record) -> writeNode(writer, record.get("id").asLong(),
+                                                                          record.get("labels").asList(Value::asString),
+                                                                          record.get("properties").asMap())));
+            partFiles.addAll(exportElements(executor, "edge", "MATCH ()-[r]->() RETURN count(r)",
+                                            "MATCH ()-[r]->() RETURN min(id(r)), max(id(r))", EDGE_PAGE_QUERY,
+                                            (writer, record) -> writeEdge(writer, record.get("id").asLong(),
+                                                                          record.get("label").asString(),
+                                                                          record.get("source").asLong(),
+                                                                          record.get("target").asLong(),
+                                                                          record.get("properties").asMap())));
+            writeGraphMLFile(outputFilePath, partFiles);
+            if (LOGGER.isInfoEnabled())
+                LOGGER.info("Exported graph into '{}'", outputFilePath);
+        } finally {
+            executor.shutdownNow();
+            try (final var tempFiles = Files.list(tempDirectory)) {
+                for (final Path tempFile : tempFiles.collect(Collectors.toList()))
+                    Files.deleteIfExists(tempFile);
+            }
+            Files.deleteIfExists(tempDirectory);
+        }
+    }
+
+    private List<Path> exportElements(final ExecutorService executor, final String type, final String countQuery,
+                                      final String idRangeQuery, final String pageQuery,
+                                      final ElementWriter elementWriter) throws IOException {
+        final long totalCount;
+        final Record idRange;
+        try (final Session session = driver.session()) {
+            totalCount = session.run(countQuery).single().get(0).asLong();
+            idRange = session.run(idRangeQuery).single();
+        }
+        if (totalCount == 0)
+            return Collections.emptyList();
+        final long minId = idRange.get(0).asLong();
+        final long maxId = idRange.get(1).asLong();
+        final long rangeCount = (long) threadCount * RANGES_PER_THREAD;
+        final long rangeSize = Math.max(PAGE_SIZE, (maxId - minId + rangeCount) / rangeCount);
+        if (LOGGER.isInfoEnabled())
+            LOGGER.info("Exporting {} {}s using {} threads...", totalCount, type, threadCount);
+        final var exportedCount = new AtomicLong();
+        final var futures = new ArrayList<Future<Path>>();
+        for (long from = minId; from <= maxId; from += rangeSize) {
+            final long rangeFrom = from;
+            final long rangeTo = Math.min(maxId, from + rangeSize - 1);
+            final Path partFile = tempDirectory.resolve(type + "-" + futures.size() + ".part");
+            futures.add(executor.submit(() -> {
+                exportRange(partFile, rangeFrom, rangeTo, pageQuery, elementWriter, exportedCount, totalCount, type);
+                return partFile;
+            }));
+        }
+        final var partFiles = new ArrayList<Path>();
+        for (final Future<Path> future : futures) {
+            try {
+                partFiles.add(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Export of " + type + "s was interrupted", e);
+            } catch (ExecutionException e) {
+                throw new IOException("Failed to export " + type + "s", e.getCause());
+            }
+        }
+        return partFiles;
+    }
+
+    private void exportRange(final Path partFile, final long from, final long to, final String pageQuery,
+                             final ElementWriter elementWriter, final AtomicLong exportedCount,
+                             final long totalCount, final String type) throws IOException, XMLStreamException {
+        try (final Session session = driver.session();
+             final Writer fileWriter = Files.newBufferedWriter(partFile, StandardCharsets.UTF_8)) {
+            final XMLStreamWriter writer = createPartWriter(fileWriter);
+            for (long pageFrom = from; pageFrom <= to; pageFrom += PAGE_SIZE) {
+                final long pageTo = Math.min(to, pageFrom + PAGE_SIZE - 1);
+                final Result result = session.run(pageQuery, Map.of("from", pageFrom, "to", pageTo));
+                long pageCount = 0;
+                while (result.hasNext()) {
+                    elementWriter.write(writer, result.next());
+                    pageCount++;
+                }
+                final long currentCount = exportedCount.addAndGet(pageCount);
+                if (pageCount > 0 && currentCount / 100000 != (currentCount - pageCount) / 100000)
+                    LOGGER.info("{}s progress: {}/{}", type, currentCount, totalCount);
+            }
+            writer.flush();
+            writer.close();
+        }
+    }
+
+    /**
+     * Creates a writer for a part file. The elements of a part are written without a surrounding root element.
+     */
+    XMLStreamWriter createPartWriter(final Writer fileWriter) throws XMLStreamException {
+        return partOutputFactory.createXMLStreamWriter(fileWriter);
+    }
+
+    void writeNode(final XMLStreamWriter writer, final long id, final List<String> labels,
+                   final Map<String, Object> properties) throws XMLStreamException {
+        final String joinedLabels = labels.stream().map(label -> ":" + label).collect(Collectors.joining());
+        writer.writeStartElement("node");
+        writer.writeAttribute("id", "n" + id);
+        writer.writeAttribute("labels", joinedLabels);
+        writeData(writer, NODE_LABELS_KEY, joinedLabels);
+        writeProperties(writer, properties, nodePropertyKeys);
+        writer.writeEndElement();
+        writer.writeCharacters("\n");
+    }
+
+    void writeEdge(final XMLStreamWriter writer, final long id, final String label, final long source,
+                   final long target, final Map<String, Object> properties) throws XMLStreamException {
+        writer.writeStartElement("edge");
+        writer.writeAttribute("id", "e" + id);
+        writer.writeAttribute("source", "n" + source);
+        writer.writeAttribute("target", "n" + target);
+        writer.writeAttribute("label", label);
+        writeData(writer, EDGE_LABEL_KEY, label);
+        writeProperties(writer, properties, edgePropertyKeys);
+        writer.writeEndElement();
+        writer.writeCharacters("\n");
+    }
+
+    private void writeProperties(final XMLStreamWriter writer, final Map<String, Object> properties,
+                                 final PropertyKeys propertyKeys) throws XMLStreamException {
+        for (final var entry : properties.entrySet()) {
+            if (entry.getValue() == null)
+                continue;
+            final String keyId = propertyKeys.register(entry.getKey(), PropertyType.of(entry.getValue()));
+            writeData(writer, keyId, formatValue(entry.getValue()));
+        }
+    }
+
+    private void writeData(final XMLStreamWriter writer, final String key,
+                           final String value) throws XMLStreamException {
+        writer.writeStartElement("data");
+        writer.writeAttribute("key", key);
+        writer.writeCharacters(value);
+        writer.writeEndElement();
+    }
+
+    /**
+     * Formats values the way they are parsed by the importer. The final type of a list key is only known once all
+     * parts are written, so every list element is quoted with escaped backslashes and quotes. The importer accepts
+     * quoted elements in lists of any type. Byte arrays are encoded as Base64 strings.
+     */
+    private String formatValue(final Object value) {
+        if (value instanceof List<?> list)
+            return list.stream().map(this::formatListElement).collect(Collectors.joining(", ", "[", "]"));
+        return formatScalarValue(value);
+    }
+
+    private String formatListElement(final Object element) {
+        return '"' + formatScalarValue(element).replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+    }
+
+    private String formatScalarValue(final Object value) {
+        if (value instanceof byte[] bytes)
+            return Base64.getEncoder().encodeToString(bytes);
+        return String.valueOf(value);
+    }
+
+    void writeGraphMLFile(final Path outputFilePath, final List<Path> partFiles) throws IOException {
+        try (final OutputStream output = openOutputFile(outputFilePath)) {
+            try {
+                final XMLStreamWriter writer = outputFactory.createXMLStreamWriter(output, "UTF-8");
+                writer.writeStartDocument("UTF-8", "1.0");
+                writer.writeCharacters("\n");
+                writer.writeStartElement("graphml");
+                writer.writeDefaultNamespace("http://graphml.graphdrawing.org/xmlns");
+                writer.writeNamespace("xsi", "http://www.w3.org/2001/XMLSchema-instance");
+                writer.writeAttribute("xsi", "http://www.w3.org/2001/XMLSchema-instance", "schemaLocation",
+                                      "http://graphml.graphdrawing.org/xmlns http://graphml.graphdrawing.org/xmlns/1.0/graphml.xsd");
+                writer.writeCharacters("\n");
+                writeKey(writer, NODE_LABELS_KEY, "node", NODE_LABELS_KEY, PropertyType.STRING);
+                writeKeys(writer, "node", nodePropertyKeys);
+                writeKey(writer, EDGE_LABEL_KEY, "edge", EDGE_LABEL_KEY, PropertyType.STRING);
+                writeKeys(writer, "edge", edgePropertyKeys);
+                writer.writeStartElement("graph");
+                writer.writeAttribute("id", "G");
+                writer.writeAttribute("edgedefault", "directed");
+                // Closes the start tag, so the part files can be appended directly to the output
+                writer.writeCharacters("\n");
+                writer.flush();
+            } catch (XMLStreamException e) {
+                throw new IOException("Failed to write GraphML header", e);
+            }
+            for (final Path partFile : partFiles)
+                Files.copy(partFile, output);
+            output.write("</graph>\n</graphml>\n".getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private OutputStream openOutputFile(final Path outputFilePath) throws IOException {
+        final var stream = new BufferedOutputStream(Files.newOutputStream(outputFilePath));
+        if (outputFilePath.toString().toLowerCase().endsWith(".gz")) {
+            return new GZIPOutputStream(stream);
+        }
+        return stream;
+    }
+
+    private void writeKeys(final XMLStreamWriter writer, final String forType,
+                           final PropertyKeys propertyKeys) throws XMLStreamException {
+        for (final var entry : new TreeMap<>(propertyKeys.types).entrySet())
+            writeKey(writer, propertyKeys.ids.get(entry.getKey()), forType, entry.getKey(), entry.getValue());
+    }
+
+    private void writeKey(final XMLStreamWriter writer, final String id, final String forType, final String name,
+                          final PropertyType type) throws XMLStreamException {
+        writer.writeEmptyElement("key");
+        writer.writeAttribute("id", id);
+        writer.writeAttribute("for", forType);
+        writer.writeAttribute("attr.name", name);
+        if (type.attributeList() != null)
+            writer.writeAttribute("attr.list", type.attributeList());
+        writer.writeAttribute("attr.type", type.attributeType());
+        writer.writeCharacters("\n");
+    }
+
+    private interface ElementWriter {
+        void write(XMLStreamWriter writer, Record record) throws XMLStreamException;
+    }
+
+    /**
+     * Key ids and merged types of the properties of either nodes or edges. Property names are arbitrary, so key ids
+     * are generated from a prefix and a counter. Generated ids can't collide with the fixed label keys.
+     */
+    private static final class PropertyKeys {
+        final String idPrefix;
+        final AtomicInteger nextId = new AtomicInteger();
+        final Map<String, String> ids = new ConcurrentHashMap<>();
+        final Map<String, PropertyType> types = new ConcurrentHashMap<>();
+
+        PropertyKeys(final String idPrefix) {
+            this.idPrefix = idPrefix;
+        }
+
+        /**
+         * @return the key id of the property
+         */
+        String register(final String name, final PropertyType type) {
+            types.merge(name, type, PropertyType::merge);
+            return ids.computeIfAbsent(name, k -> idPrefix + nextId.getAndIncrement());
+        }
+    }
+
+    /**
+     * GraphML type of a property. Conflicting types of the same property are widened to double or string.
+     *
+     * @param type   scalar type or the element type if the property is a list, null for lists without elements
+     * @param isList   whether the property is a list
+     */
+    private record PropertyType(String type, boolean isList) {
+        static final PropertyType STRING = new PropertyType("string", false);
+
+        static PropertyType of(final Object value) {
+            if (value instanceof List<?> list) {
+                String elementType = null;
+                for (final Object element : list)
+                    elementType = mergeScalarTypes(elementType, getScalarType(element));
+                return new PropertyType(elementType, true);
+            }
+            return new PropertyType(getScalarType(value), false);
+        }
+
+        String attributeType() {
+            return isList || type == null ? "string" : type;
+        }
+
+        String attributeList() {
+            if (!isList)
+                return null;
+            return type == null ? "string" : type;
+        }
+
+        private static String getScalarType(final Object value) {
+            if (value instanceof Long)
+                return "long";
+            if (value instanceof Double)
+                return "double";
+            if (value instanceof Boolean)
+                return "boolean";
+            return "string";
+        }
+
+        private static String mergeScalarTypes(final String a, final String b) {
+            if (a == null || a.equals(b))
+                return b;
+            if (b == null)
+                return a;
+            if ((a.equals("long") || a.equals("double")) && (b.equals("long") || b.equals("double")))
+                return "double";
+            return "string";
+        }
+
+        PropertyType merge(final PropertyType other) {
+            if (equals(other))
+                return this;
+            if (isList != other.isList)
+                return STRING;
+            return new PropertyType(mergeScalarTypes(type, other.type), isList);
+        }
+    }
+}
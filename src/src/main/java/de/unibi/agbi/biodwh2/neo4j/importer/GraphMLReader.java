@@ -0,0 +1,267 @@
+package de.unibi.agbi.biodwh2.neo4j.importer;
+
+import com.ctc.wstx.exc.WstxEOFException;
+import de.unibi.agbi.biodwh2.neo4j.importer.model.graphml.PropertyKey;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Streaming access to the elements and property values of a (gzipped) GraphML file.
+ */
+final class GraphMLReader {
+    private static final Logger LOGGER = LogManager.getLogger(GraphMLReader.class);
+
+    private final Path inputFilePath;
+    private Consumer<String> readErrorListener;
+
+    GraphMLReader(final Path inputFilePath) {
+        this.inputFilePath = inputFilePath;
+    }
+
+    /**
+     * Sets the listener notified with the message of every XML read error. Read errors are always logged, but
+     * otherwise only end the current element or the whole read.
+     */
+    void setReadErrorListener(final Consumer<String> readErrorListener) {
+        this.readErrorListener = readErrorListener;
+    }
+
+    private void reportReadError(final String message, final Exception e) {
+        LOGGER.error(message, e);
+        if (readErrorListener != null)
+            readErrorListener.accept(message + ": " + e.getMessage());
+    }
+
+    void handleAllElementsWithTag(final String tagName, final Callback<XMLEventReader, StartElement> callback) {
+        try (final var stream = openInputFile()) {
+            final XMLEventReader reader = XMLInputFactory.newInstance().createXMLEventReader(stream);
+            while (reader.hasNext()) {
+                final XMLEvent nextEvent = reader.nextEvent();
+                if (nextEvent != null && nextEvent.isStartElement()) {
+                    final StartElement startElement = nextEvent.asStartElement();
+                    if (startElement.getName().getLocalPart().equals(tagName))
+                        callback.callback(reader, startElement);
+                }
+            }
+        } catch (IOException | XMLStreamException e) {
+            reportReadError("Failed to load GraphML", e);
+        }
+    }
+
+    private InputStream openInputFile() throws IOException {
+        final var stream = new FileInputStream(inputFilePath.toFile());
+        if (inputFilePath.toString().toLowerCase().endsWith(".gz")) {
+            return new GZIPInputStream(stream);
+        }
+        return stream;
+    }
+
+    /**
+     * Reads all {@code <key>} definitions mapped by {@code <for>|<id>}.
+     */
+    Map<String, PropertyKey> readPropertyKeys() {
+        final Map<String, PropertyKey> propertyKeyNameMap = new HashMap<>();
+        handleAllElementsWithTag("key", (reader, startElement) -> {
+            final PropertyKey property = getPropertyKeyFromElement(startElement);
+            propertyKeyNameMap.put(property.forType() + "|" + property.id(), property);
+        });
+        return propertyKeyNameMap;
+    }
+
+    private PropertyKey getPropertyKeyFromElement(final StartElement element) {
+        final String id = getElementAttribute(element, "id");
+        final String forType = getElementAttribute(element, "for");
+        final String attributeName = getElementAttribute(element, "attr.name");
+        final String attributeList = getElementAttribute(element, "attr.list");
+        final String attributeType = getElementAttribute(element, "attr.type");
+        return new PropertyKey(id, forType, attributeName, attributeType, attributeList);
+    }
+
+    static String getElementAttribute(final StartElement element, final String name) {
+        final Attribute attribute = element.getAttributeByName(QName.valueOf(name));
+        return attribute != null ? attribute.getValue() : null;
+    }
+
+    Map<String, Object> collectNodeOrEdgeProperties(final XMLEventReader reader,
+                                                    final Map<String, PropertyKey> propertyKeyNameMap,
+                                                    final String forType) throws XMLStreamException {
+        final var properties = new HashMap<String, Object>();
+        for (final var entry : collectRawNodeOrEdgeProperties(reader, propertyKeyNameMap, forType).entrySet())
+            properties.put(entry.getKey().attributeName(), parsePropertyValue(entry.getKey(), entry.getValue()));
+        return properties;
+    }
+
+    /**
+     * Collects the unparsed text of all properties of the current node or edge. Labels are skipped as they are part
+     * of the element attributes.
+     */
+    Map<PropertyKey, String> collectRawNodeOrEdgeProperties(final XMLEventReader reader,
+                                                            final Map<String, PropertyKey> propertyKeyNameMap,
+                                                            final String forType) throws XMLStreamException {
+        final var properties = new LinkedHashMap<PropertyKey, String>();
+        while (reader.hasNext()) {
+            final XMLEvent nextEvent = tryNextEvent(reader);
+            if (nextEvent == null)
+                break;
+            if (nextEvent.isStartElement()) {
+                final StartElement startChildElement = nextEvent.asStartElement();
+                final String propertyKey = getElementAttribute(startChildElement, "key");
+                final String forTypePropertyKey = forType + "|" + propertyKey;
+                if (!propertyKeyNameMap.containsKey(forTypePropertyKey)) {
+                    final PropertyKey property = new PropertyKey(propertyKey, forType, propertyKey, "string", null);
+                    propertyKeyNameMap.put(forTypePropertyKey, property);
+                    if (LOGGER.isInfoEnabled())
+                        LOGGER.warn("{} property '{}' wasn't defined, fallback to string property", forType,
+                                    propertyKey);
+                }
+                final PropertyKey property = propertyKeyNameMap.get(forTypePropertyKey);
+                final String propertyName = property.attributeName();
+                if (!propertyName.equals("labels") && !propertyName.equals("label"))
+                    properties.put(property, tryGetElementText(reader));
+            } else if (nextEvent.isEndElement()) {
+                final String tagName = nextEvent.asEndElement().getName().getLocalPart();
+                if (tagName.equalsIgnoreCase("node") || tagName.equalsIgnoreCase("edge"))
+                    break;
+            }
+        }
+        return properties;
+    }
+
+    private XMLEvent tryNextEvent(final XMLEventReader reader) throws XMLStreamException {
+        try {
+            return reader.nextEvent();
+        } catch (XMLStreamException e) {
+            if (e instanceof WstxEOFException || e.getMessage().contains("Unexpected EOF"))
+                throw e;
+            reportReadError("Failed to read XML event", e);
+            return null;
+        }
+    }
+
+    private String tryGetElementText(final XMLEventReader reader) {
+        try {
+            return reader.getElementText();
+        } catch (XMLStreamException e) {
+            reportReadError("Failed to read XML element text", e);
+            return null;
+        }
+    }
+
+    /**
+     * Converts the property text into the value type of the property key.
+     *
+     * @throws InvalidPropertyValueException if a numeric value can't be parsed
+     */
+    static Object parsePropertyValue(final PropertyKey type, final String value) {
+        if (value == null)
+            return null;
+        try {
+            return parseNonNullPropertyValue(type, value);
+        } catch (NumberFormatException e) {
+            throw new InvalidPropertyValueException(type, value, e);
+        }
+    }
+
+    private static Object parseNonNullPropertyValue(final PropertyKey type, final String value) {
+        if (type.attributeList() != null) {
+            return parsePropertyListValue(type, value);
+        } else {
+            return switch (type.attributeType().toLowerCase(Locale.US)) {
+                case "boolean" -> Boolean.valueOf(value);
+                case "int" -> Integer.valueOf(value);
+                case "long" -> Long.valueOf(value);
+                case "float" -> Float.valueOf(value);
+                case "double" -> Double.valueOf(value);
+                default -> value;
+            };
+        }
+    }
+
+    private static Object parsePropertyListValue(final PropertyKey type, String value) {
+        value = StringUtils.strip(value, "[] \t\n\r");
+        return switch (type.attributeList().toLowerCase(Locale.US)) {
+            case "boolean" -> convertStringToTypeList(value, Boolean::valueOf);
+            case "int" -> convertStringToTypeList(value, Integer::valueOf);
+            case "long" -> convertStringToTypeList(value, Long::valueOf);
+            case "float" -> convertStringToTypeList(value, Float::valueOf);
+            case "double" -> convertStringToTypeList(value, Double::valueOf);
+            default -> {
+                boolean insideString = false;
+                int start = 0;
+                int escapeCount = 0;
+                List<String> parts = new ArrayList<>();
+                for (int i = 0; i < value.length(); i++) {
+                    char currentChar = value.charAt(i);
+                    if (currentChar == '"') {
+                        if (insideString && escapeCount % 2 == 0) {
+                            parts.add(unescapeListElement(value.substring(start, i)));
+                            insideString = false;
+                        } else if (!insideString) {
+                            insideString = true;
+                            start = i + 1;
+                        }
+                    }
+                    escapeCount = currentChar == '\\' ? escapeCount + 1 : 0;
+                }
+                yield parts;
+            }
+        };
+    }
+
+    /**
+     * Removes the backslash in front of escaped backslashes and quotes of a quoted string list element.
+     */
+    private static String unescapeListElement(final String element) {
+        if (element.indexOf('\\') == -1)
+            return element;
+        final var result = new StringBuilder(element.length());
+        for (int i = 0; i < element.length(); i++) {
+            final char currentChar = element.charAt(i);
+            if (currentChar == '\\' && i + 1 < element.length()) {
+                final char nextChar = element.charAt(i + 1);
+                if (nextChar == '\\' || nextChar == '"') {
+                    result.append(nextChar);
+                    i++;
+                    continue;
+                }
+            }
+            result.append(currentChar);
+        }
+        return result.toString();
+    }
+
+    private static <R> List<R> convertStringToTypeList(final String value, Function<String, R> mapper) {
+        return splitTypedListValue(value).stream().map(mapper).collect(Collectors.toList());
+    }
+
+    /**
+     * Splits the text of a list property which isn't a string list into its elements. Elements may be quoted, as
+     * exported lists are quoted independent of their type.
+     */
+    static List<String> splitTypedListValue(final String value) {
+        return Arrays.stream(StringUtils.split(StringUtils.strip(value, "[] \t\n\r"), ',')).map(String::strip).map(
+                element -> StringUtils.unwrap(element, '"')).collect(Collectors.toList());
+    }
+
+    interface Callback<T, U> {
+        void callback(T t, U u) throws XMLStreamException;
+    }
+}
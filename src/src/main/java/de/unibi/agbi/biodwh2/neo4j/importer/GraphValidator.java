@@ -0,0 +1,301 @@
+package de.unibi.agbi.biodwh2.neo4j.importer;
+
+import de.unibi.agbi.biodwh2.neo4j.importer.model.graphml.PropertyKey;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+import static de.unibi.agbi.biodwh2.neo4j.importer.GraphMLReader.getElementAttribute;
+
+/**
+ * Scans a GraphML file for errors which would otherwise only show up during the import and collects statistics of
+ * the graph. The file is read sequentially while the elements are validated in chunks on multiple threads.
+ */
+final class GraphValidator {
+    private static final Logger LOGGER = LogManager.getLogger(GraphValidator.class);
+    private static final int CHUNK_SIZE = 10000;
+    private static final int MAX_REPORTED_ISSUE_EXAMPLES = 10;
+    private static final int[] DEGREE_BUCKET_BOUNDS = {0, 1, 10, 100, 1000, 10000};
+
+    private final GraphMLReader graphMLReader;
+    private final int threadCount;
+    private final Map<IssueType, IssueCollector> issues = new EnumMap<>(IssueType.class);
+    private final ElementStatistics nodeStatistics = new ElementStatistics();
+    private final ElementStatistics edgeStatistics = new ElementStatistics();
+    /**
+     * Out- and in-degree of every node id. The presence of a key is also used to detect duplicate node ids and edges
+     * with missing source or target nodes.
+     */
+    private final ConcurrentHashMap<String, int[]> nodeDegrees = new ConcurrentHashMap<>();
+    private Set<String> declaredPropertyKeys;
+
+    GraphValidator(final GraphMLReader graphMLReader, final int threadCount) {
+        this.graphMLReader = graphMLReader;
+        this.threadCount = Math.max(1, threadCount);
+        for (final IssueType type : IssueType.values())
+            issues.put(type, new IssueCollector());
+    }
+
+    /**
+     * @return true if no errors were found
+     */
+    boolean validate() {
+        graphMLReader.setReadErrorListener(message -> addIssue(IssueType.READ_ERROR, message));
+        final Map<String, PropertyKey> propertyKeyNameMap = graphMLReader.readPropertyKeys();
+        declaredPropertyKeys = Set.copyOf(propertyKeyNameMap.keySet());
+        final ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            if (LOGGER.isInfoEnabled())
+                LOGGER.info("Validating nodes using {} threads...", threadCount);
+            scanElements(executor, propertyKeyNameMap, "node", this::validateNode);
+            if (LOGGER.isInfoEnabled())
+                LOGGER.info("Validating edges using {} threads...", threadCount);
+            scanElements(executor, propertyKeyNameMap, "edge", this::validateEdge);
+        } finally {
+            executor.shutdown();
+        }
+        return report();
+    }
+
+    private void scanElements(final ExecutorService executor, final Map<String, PropertyKey> propertyKeyNameMap,
+                              final String tagName, final ElementValidator validator) {
+        // Limits the number of chunks waiting in memory if the validation can't keep up with the reader
+        final var inFlightChunks = new Semaphore(threadCount * 2);
+        final var futures = new ArrayList<Future<?>>();
+        final var chunk = new ArrayList<RawElement>(CHUNK_SIZE);
+        graphMLReader.handleAllElementsWithTag(tagName, (reader, startElement) -> {
+            chunk.add(new RawElement(getElementAttribute(startElement, "id"),
+                                     getElementAttribute(startElement, "labels"),
+                                     getElementAttribute(startElement, "label"),
+                                     getElementAttribute(startElement, "source"),
+                                     getElementAttribute(startElement, "target"),
+                                     graphMLReader.collectRawNodeOrEdgeProperties(reader, propertyKeyNameMap,
+                                                                                  tagName)));
+            if (chunk.size() >= CHUNK_SIZE) {
+                futures.add(submitChunk(executor, inFlightChunks, new ArrayList<>(chunk), validator));
+                chunk.clear();
+            }
+        });
+        if (!chunk.isEmpty())
+            futures.add(submitChunk(executor, inFlightChunks, chunk, validator));
+        for (final Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                LOGGER.error("Failed to validate {} chunk", tagName, e.getCause());
+            }
+        }
+    }
+
+    private Future<?> submitChunk(final ExecutorService executor, final Semaphore inFlightChunks,
+                                  final List<RawElement> chunk, final ElementValidator validator) {
+        inFlightChunks.acquireUninterruptibly();
+        return executor.submit(() -> {
+            try {
+                for (final RawElement element : chunk)
+                    validator.validate(element);
+            } finally {
+                inFlightChunks.release();
+            }
+        });
+    }
+
+    private void validateNode(final RawElement node) {
+        nodeStatistics.count.increment();
+        if (StringUtils.isEmpty(node.id()))
+            addIssue(IssueType.MISSING_NODE_ID, "Node with labels '" + node.labels() + "'");
+        else if (nodeDegrees.putIfAbsent(node.id(), new int[2]) != null)
+            addIssue(IssueType.DUPLICATE_NODE_ID, "Node '" + node.id() + "'");
+        if (node.labels() != null)
+            for (final String label : StringUtils.split(node.labels(), ':'))
+                nodeStatistics.increment(nodeStatistics.labelCounts, label);
+        validateProperties("node", node.id(), node.properties(), nodeStatistics);
+    }
+
+    private void validateEdge(final RawElement edge) {
+        edgeStatistics.count.increment();
+        edgeStatistics.increment(edgeStatistics.labelCounts, edge.label() != null ? edge.label() : "");
+        final boolean sourceFound = edge.source() != null && nodeDegrees.computeIfPresent(edge.source(), (id, d) -> {
+            d[0]++;
+            return d;
+        }) != null;
+        final boolean targetFound = edge.target() != null && nodeDegrees.computeIfPresent(edge.target(), (id, d) -> {
+            d[1]++;
+            return d;
+        }) != null;
+        if (!sourceFound)
+            addIssue(IssueType.MISSING_EDGE_SOURCE, describeEdge(edge));
+        if (!targetFound)
+            addIssue(IssueType.MISSING_EDGE_TARGET, describeEdge(edge));
+        validateProperties("edge", edge.id(), edge.properties(), edgeStatistics);
+    }
+
+    private String describeEdge(final RawElement edge) {
+        return "Edge '" + edge.id() + "' (" + edge.source() + ")-[" + edge.label() + "]->(" + edge.target() + ")";
+    }
+
+    private void validateProperties(final String forType, final String id, final Map<PropertyKey, String> properties,
+                                    final ElementStatistics statistics) {
+        for (final var entry : properties.entrySet()) {
+            final PropertyKey key = entry.getKey();
+            statistics.increment(statistics.propertyCounts, key.attributeName());
+            if (!declaredPropertyKeys.contains(forType + "|" + key.id()))
+                addIssue(IssueType.UNDEFINED_PROPERTY_KEY, forType + " '" + id + "' property key '" + key.id() + "'");
+            else if (!isValidValue(key, entry.getValue()))
+                addIssue(IssueType.VALUE_TYPE_MISMATCH,
+                         forType + " '" + id + "' property '" + key.attributeName() + "' (" + getTypeName(key) +
+                         "): '" + StringUtils.truncate(entry.getValue(), 100) + "'");
+        }
+    }
+
+    private boolean isValidValue(final PropertyKey key, final String value) {
+        if (value == null)
+            return true;
+        // Booleans are parsed leniently, so every text other than true is imported as false
+        if ("boolean".equalsIgnoreCase(key.attributeList()))
+            return GraphMLReader.splitTypedListValue(value).stream().allMatch(this::isBooleanText);
+        if (key.attributeList() == null && "boolean".equalsIgnoreCase(key.attributeType()))
+            return isBooleanText(value);
+        try {
+            GraphMLReader.parsePropertyValue(key, value);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private boolean isBooleanText(final String value) {
+        return "true".equalsIgnoreCase(value) || "false".equalsIgnoreCase(value);
+    }
+
+    private String getTypeName(final PropertyKey key) {
+        return key.attributeList() != null ? key.attributeList() + "[]" : key.attributeType();
+    }
+
+    private void addIssue(final IssueType type, final String example) {
+        issues.get(type).add(example);
+    }
+
+    long getIssueCount(final IssueType type) {
+        return issues.get(type).count.sum();
+    }
+
+    private boolean report() {
+        final long nodeCount = nodeStatistics.count.sum();
+        final long edgeCount = edgeStatistics.count.sum();
+        LOGGER.info("=======================================");
+        LOGGER.info("{} nodes, {} edges", nodeCount, edgeCount);
+        reportHistogram("Node label", nodeStatistics.labelCounts, nodeCount);
+        reportHistogram("Node property fill rate", nodeStatistics.propertyCounts, nodeCount);
+        reportHistogram("Edge type", edgeStatistics.labelCounts, edgeCount);
+        reportHistogram("Edge property fill rate", edgeStatistics.propertyCounts, edgeCount);
+        reportDegreeDistribution();
+        LOGGER.info("=======================================");
+        long errorCount = 0;
+        for (final IssueType type : IssueType.values()) {
+            final IssueCollector collector = issues.get(type);
+            final long count = collector.count.sum();
+            if (count == 0)
+                continue;
+            errorCount += count;
+            LOGGER.error("{}: {}", type.description, count);
+            for (final String example : collector.getExamples())
+                LOGGER.error("    {}", example);
+            if (count > MAX_REPORTED_ISSUE_EXAMPLES)
+                LOGGER.error("    ... and {} more", count - MAX_REPORTED_ISSUE_EXAMPLES);
+        }
+        if (errorCount == 0)
+            LOGGER.info("No errors found");
+        return errorCount == 0;
+    }
+
+    private void reportHistogram(final String title, final Map<String, LongAdder> counts, final long total) {
+        if (counts.isEmpty())
+            return;
+        LOGGER.info("{}:", title);
+        counts.entrySet().stream().sorted(Comparator.comparingLong(e -> -e.getValue().sum())).forEach(e -> {
+            final long count = e.getValue().sum();
+            LOGGER.info("    {}: {} ({}%)", e.getKey(), count,
+                        String.format(Locale.US, "%.1f", total == 0 ? 0 : count * 100.0 / total));
+        });
+    }
+
+    private void reportDegreeDistribution() {
+        if (nodeDegrees.isEmpty())
+            return;
+        final int[] degrees = nodeDegrees.values().stream().mapToInt(d -> d[0] + d[1]).sorted().toArray();
+        final long sum = Arrays.stream(degrees).asLongStream().sum();
+        LOGGER.info("Node degree: min {}, median {}, mean {}, max {}", degrees[0], degrees[degrees.length / 2],
+                    String.format(Locale.US, "%.2f", sum / (double) degrees.length), degrees[degrees.length - 1]);
+        for (int i = 0; i < DEGREE_BUCKET_BOUNDS.length; i++) {
+            final int lower = DEGREE_BUCKET_BOUNDS[i];
+            final int upper = i + 1 < DEGREE_BUCKET_BOUNDS.length ? DEGREE_BUCKET_BOUNDS[i + 1] : Integer.MAX_VALUE;
+            final long count = Arrays.stream(degrees).filter(d -> d >= lower && d < upper).count();
+            if (count > 0) {
+                final String range = upper == lower + 1 ? String.valueOf(lower) :
+                                     upper == Integer.MAX_VALUE ? lower + "+" : lower + "-" + (upper - 1);
+                LOGGER.info("    {}: {} nodes", range, count);
+            }
+        }
+    }
+
+    private interface ElementValidator {
+        void validate(RawElement element);
+    }
+
+    private record RawElement(String id, String labels, String label, String source, String target,
+                              Map<PropertyKey, String> properties) {
+    }
+
+    enum IssueType {
+        READ_ERROR("XML read errors"),
+        MISSING_NODE_ID("Nodes without id"),
+        DUPLICATE_NODE_ID("Duplicate node ids"),
+        MISSING_EDGE_SOURCE("Edges with missing source node"),
+        MISSING_EDGE_TARGET("Edges with missing target node"),
+        UNDEFINED_PROPERTY_KEY("Properties without <key> definition"),
+        VALUE_TYPE_MISMATCH("Values not matching their <key> type");
+
+        final String description;
+
+        IssueType(final String description) {
+            this.description = description;
+        }
+    }
+
+    private static class IssueCollector {
+        final LongAdder count = new LongAdder();
+        private final List<String> examples = new ArrayList<>();
+
+        void add(final String example) {
+            count.increment();
+            synchronized (examples) {
+                if (examples.size() < MAX_REPORTED_ISSUE_EXAMPLES)
+                    examples.add(example);
+            }
+        }
+
+        List<String> getExamples() {
+            synchronized (examples) {
+                return new ArrayList<>(examples);
+            }
+        }
+    }
+
+    private static class ElementStatistics {
+        final LongAdder count = new LongAdder();
+        final ConcurrentHashMap<String, LongAdder> labelCounts = new ConcurrentHashMap<>();
+        final ConcurrentHashMap<String, LongAdder> propertyCounts = new ConcurrentHashMap<>();
+
+        void increment(final ConcurrentHashMap<String, LongAdder> counts, final String key) {
+            counts.computeIfAbsent(key, k -> new LongAdder()).increment();
+        }
+    }
+}
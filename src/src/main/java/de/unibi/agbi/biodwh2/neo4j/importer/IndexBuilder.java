@@ -0,0 +1,214 @@
+package de.unibi.agbi.biodwh2.neo4j.importer;
+
+import de.unibi.agbi.biodwh2.neo4j.importer.model.IndexDefinition;
+import de.unibi.agbi.biodwh2.neo4j.importer.model.Version;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.Strings;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Session;
+import org.neo4j.driver.Value;
+import org.neo4j.driver.exceptions.Neo4jException;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Creates the requested indices and unique constraints and tracks their population until all of them are online.
+ * Depending on the detected Neo4j version either the current schema syntax together with {@code SHOW INDEXES} or the
+ * legacy syntax together with {@code CALL db.indexes} is used.
+ */
+final class IndexBuilder {
+    private static final Logger LOGGER = LogManager.getLogger(IndexBuilder.class);
+    private static final Version NEO4J_4_VERSION = new Version(4, 0);
+    private static final Version NEW_INDEX_CREATION_NEO4J_VERSION = new Version(4, 1, 3);
+    private static final Version SHOW_INDEXES_NEO4J_VERSION = new Version(4, 3);
+    private static final Version REQUIRE_CONSTRAINT_NEO4J_VERSION = new Version(4, 4);
+    private static final Version COMPOSITE_UNIQUE_CONSTRAINT_NEO4J_VERSION = new Version(5, 0);
+    private static final long POLL_INTERVAL_MILLIS = 2000;
+    private static final int AWAIT_INDEXES_TIMEOUT_SECONDS = 24 * 60 * 60;
+
+    private final Version neo4jVersion;
+    private final List<IndexDefinition> indices;
+    private final List<IndexDefinition> createdIndices = new ArrayList<>();
+
+    IndexBuilder(final Version neo4jVersion, final List<IndexDefinition> indices) {
+        this.neo4jVersion = neo4jVersion;
+        this.indices = indices;
+    }
+
+    void createIndices(final Session session) {
+        final boolean useNewIndexCreation = isAtLeast(NEW_INDEX_CREATION_NEO4J_VERSION);
+        final Set<IndexDefinition> existingIndices =
+                useNewIndexCreation ? Collections.emptySet() : getExistingIndices(session);
+        for (final IndexDefinition index : indices) {
+            if (index.unique() && index.isComposite() && !isAtLeast(COMPOSITE_UNIQUE_CONSTRAINT_NEO4J_VERSION)) {
+                if (LOGGER.isWarnEnabled())
+                    LOGGER.warn("Skipping {} because composite unique constraints require Neo4j {} or newer", index,
+                                COMPOSITE_UNIQUE_CONSTRAINT_NEO4J_VERSION);
+                continue;
+            }
+            final String label = StringUtils.strip(index.label(), "`");
+            if (existingIndices.contains(new IndexDefinition(label, index.propertyKeys(), index.unique()))) {
+                if (LOGGER.isInfoEnabled())
+                    LOGGER.info("Skipping index creation of {} because a similar index already exists", index);
+                createdIndices.add(index);
+                continue;
+            }
+            if (LOGGER.isInfoEnabled())
+                LOGGER.info("Create index {}", index);
+            session.run(getCreateStatement(index, useNewIndexCreation)).consume();
+            createdIndices.add(index);
+        }
+    }
+
+    private boolean isAtLeast(final Version version) {
+        return neo4jVersion != null && neo4jVersion.compareTo(version) >= 0;
+    }
+
+    private String getCreateStatement(final IndexDefinition index, final boolean useNewIndexCreation) {
+        final String properties = index.propertyKeys().stream().map(key -> "t." + key).collect(
+                Collectors.joining(", "));
+        if (!index.unique()) {
+            if (useNewIndexCreation)
+                return "CREATE INDEX IF NOT EXISTS FOR (t:" + index.label() + ") ON (" + properties + ")";
+            return "CREATE INDEX ON :" + index.label() + " (" + String.join(", ", index.propertyKeys()) + ")";
+        }
+        if (isAtLeast(REQUIRE_CONSTRAINT_NEO4J_VERSION))
+            return "CREATE CONSTRAINT IF NOT EXISTS FOR (t:" + index.label() + ") REQUIRE (" + properties +
+                   ") IS UNIQUE";
+        if (useNewIndexCreation)
+            return "CREATE CONSTRAINT IF NOT EXISTS ON (t:" + index.label() + ") ASSERT " + properties + " IS UNIQUE";
+        return "CREATE CONSTRAINT ON (t:" + index.label() + ") ASSERT " + properties + " IS UNIQUE";
+    }
+
+    /**
+     * Existing indices are matched including their uniqueness. A plain index doesn't satisfy a requested unique
+     * constraint, in which case the creation is attempted and reported by the server.
+     */
+    private Set<IndexDefinition> getExistingIndices(final Session session) {
+        final var indices = new HashSet<IndexDefinition>();
+        for (final IndexState index : queryIndexStates(session)) {
+            if (index.labels().isEmpty())
+                continue;
+            if (index.labels().size() > 1 && LOGGER.isWarnEnabled())
+                LOGGER.warn("Found multiple labels for index {}. Ignoring all but first label.", index.name());
+            indices.add(new IndexDefinition(index.labels().get(0), index.properties(), index.unique()));
+        }
+        return indices;
+    }
+
+    /**
+     * Blocks until all indices created by {@link #createIndices(Session)} are online and logs the population progress
+     * in the meantime. If the index states can't be queried, the server side {@code db.awaitIndexes} procedure is used
+     * instead.
+     *
+     * @return false if the population of any index failed or waiting was interrupted
+     */
+    boolean awaitIndicesOnline(final Session session) {
+        final var pending = new ArrayList<>(createdIndices);
+        int failedCount = 0;
+        while (!pending.isEmpty()) {
+            final List<IndexState> states;
+            try {
+                states = queryIndexStates(session);
+            } catch (Neo4jException e) {
+                if (LOGGER.isWarnEnabled())
+                    LOGGER.warn("Failed to query index states, waiting for all indices using db.awaitIndexes", e);
+                session.run("CALL db.awaitIndexes(" + AWAIT_INDEXES_TIMEOUT_SECONDS + ")").consume();
+                return true;
+            }
+            double populationPercentSum = 0;
+            final Iterator<IndexDefinition> iterator = pending.iterator();
+            while (iterator.hasNext()) {
+                final IndexDefinition index = iterator.next();
+                final IndexState state = findIndexState(states, index);
+                if (state == null) {
+                    LOGGER.warn("Index {} not found on the server and will not be tracked", index);
+                    iterator.remove();
+                } else if ("FAILED".equalsIgnoreCase(state.state())) {
+                    LOGGER.error("Population of index {} failed", index);
+                    iterator.remove();
+                    failedCount++;
+                } else if ("ONLINE".equalsIgnoreCase(state.state())) {
+                    iterator.remove();
+                } else
+                    populationPercentSum += state.populationPercent();
+            }
+            if (pending.isEmpty())
+                break;
+            if (LOGGER.isInfoEnabled())
+                LOGGER.info("Index population: {}/{} online, {} populating at {}% on average",
+                            createdIndices.size() - pending.size(), createdIndices.size(), pending.size(),
+                            String.format(Locale.US, "%.1f", populationPercentSum / pending.size()));
+            try {
+                Thread.sleep(POLL_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        if (failedCount > 0) {
+            LOGGER.error("Population of {}/{} indices failed", failedCount, createdIndices.size());
+            return false;
+        }
+        if (!createdIndices.isEmpty() && LOGGER.isInfoEnabled())
+            LOGGER.info("All {} indices are online", createdIndices.size());
+        return true;
+    }
+
+    private IndexState findIndexState(final List<IndexState> states, final IndexDefinition index) {
+        final String label = StringUtils.strip(index.label(), "`");
+        for (final IndexState state : states)
+            if (state.labels().size() == 1 && state.labels().get(0).equals(label) && state.properties().equals(
+                    index.propertyKeys()))
+                return state;
+        return null;
+    }
+
+    private List<IndexState> queryIndexStates(final Session session) {
+        final List<Record> records;
+        final String labelsKey;
+        final String progressKey;
+        if (isAtLeast(SHOW_INDEXES_NEO4J_VERSION)) {
+            records = session.run("SHOW INDEXES YIELD *").list();
+            labelsKey = "labelsOrTypes";
+            progressKey = "populationPercent";
+        } else {
+            records = session.run("CALL db.indexes").list();
+            final boolean isNeo4j4 = isAtLeast(NEO4J_4_VERSION);
+            labelsKey = isNeo4j4 ? "labelsOrTypes" : "tokenNames";
+            progressKey = isNeo4j4 ? "populationPercent" : "progress";
+        }
+        final var states = new ArrayList<IndexState>();
+        for (final Record record : records) {
+            final Value name = record.get(isAtLeast(NEO4J_4_VERSION) ? "name" : "description");
+            final Value labels = record.get(labelsKey);
+            final Value properties = record.get("properties");
+            final Value progress = record.get(progressKey);
+            final Value uniqueness = record.get(isAtLeast(NEO4J_4_VERSION) ? "uniqueness" : "type");
+            states.add(new IndexState(name.isNull() ? null : name.asString(),
+                                      labels.isNull() ? List.of() : labels.asList(Value::asString),
+                                      properties.isNull() ? List.of() : properties.asList(Value::asString),
+                                      record.get("state").asString(), progress.isNull() ? 0 : progress.asDouble(),
+                                      isUnique(record, uniqueness)));
+        }
+        return states;
+    }
+
+    /**
+     * Neo4j 3.5 reports the index type ({@code node_unique_property}), Neo4j 4 the uniqueness ({@code UNIQUE}) and
+     * Neo4j 5 the owning constraint of an index.
+     */
+    private boolean isUnique(final Record record, final Value uniqueness) {
+        if (!uniqueness.isNull())
+            return Strings.CI.contains(uniqueness.asString(), "unique") && !"NONUNIQUE".equalsIgnoreCase(
+                    uniqueness.asString());
+        return record.containsKey("owningConstraint") && !record.get("owningConstraint").isNull();
+    }
+
+    private record IndexState(String name, List<String> labels, List<String> properties, String state,
+                              double populationPercent, boolean unique) {
+    }
+}
@@ -0,0 +1,27 @@
+package de.unibi.agbi.biodwh2.neo4j.importer;
+
+import de.unibi.agbi.biodwh2.neo4j.importer.model.graphml.PropertyKey;
+
+/**
+ * Thrown if the text of a property doesn't match the type of its property key.
+ */
+final class InvalidPropertyValueException extends IllegalArgumentException {
+    private final transient PropertyKey propertyKey;
+    private final String rawValue;
+
+    InvalidPropertyValueException(final PropertyKey propertyKey, final String rawValue, final Throwable cause) {
+        super("Invalid " + propertyKey.attributeType() + (propertyKey.attributeList() != null ?
+                                                          " list of " + propertyKey.attributeList() : "") +
+              " value '" + rawValue + "' of property '" + propertyKey.attributeName() + "'", cause);
+        this.propertyKey = propertyKey;
+        this.rawValue = rawValue;
+    }
+
+    PropertyKey getPropertyKey() {
+        return propertyKey;
+    }
+
+    String getRawValue() {
+        return rawValue;
+    }
+}
@@ -0,0 +1,60 @@
+package de.unibi.agbi.biodwh2.neo4j.importer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Writes rows as JSON lines. The file is only created once the first row is written.
+ */
+class JsonLinesWriter implements AutoCloseable {
+    private static final Logger LOGGER = LogManager.getLogger(JsonLinesWriter.class);
+
+    private final Path filePath;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private BufferedWriter writer;
+    private long count;
+
+    JsonLinesWriter(final Path filePath) {
+        this.filePath = filePath;
+    }
+
+    synchronized void write(final Map<String, Object> row) {
+        count++;
+        try {
+            if (writer == null)
+                writer = Files.newBufferedWriter(filePath, StandardCharsets.UTF_8);
+            writer.write(mapper.writeValueAsString(row));
+            writer.newLine();
+        } catch (IOException | JacksonException e) {
+            LOGGER.error("Failed to write row to '{}'", filePath, e);
+        }
+    }
+
+    synchronized long getCount() {
+        return count;
+    }
+
+    Path getFilePath() {
+        return filePath;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                LOGGER.error("Failed to close '{}'", filePath, e);
+            }
+        }
+    }
+}
@@ -1,122 +1,116 @@
 package de.unibi.agbi.biodwh2.neo4j.importer;
 
-import com.ctc.wstx.exc.WstxEOFException;
-import tools.jackson.core.type.TypeReference;
-import tools.jackson.databind.ObjectMapper;
 import de.unibi.agbi.biodwh2.neo4j.importer.model.CmdArgs;
-import de.unibi.agbi.biodwh2.neo4j.importer.model.GithubAsset;
-import de.unibi.agbi.biodwh2.neo4j.importer.model.GithubRelease;
+import de.unibi.agbi.biodwh2.neo4j.importer.model.IndexDefinition;
+import de.unibi.agbi.biodwh2.neo4j.importer.model.IndexPhase;
+import de.unibi.agbi.biodwh2.neo4j.importer.model.PartitionDefinition;
+import de.unibi.agbi.biodwh2.neo4j.importer.model.PartitionRule;
 import de.unibi.agbi.biodwh2.neo4j.importer.model.Version;
 import de.unibi.agbi.biodwh2.neo4j.importer.model.graphml.PropertyKey;
 import org.apache.commons.lang3.StringUtils;
 import org.neo4j.driver.*;
 import org.neo4j.driver.Record;
+import org.neo4j.driver.exceptions.Neo4jException;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.LogManager;
 import picocli.CommandLine;
 
-import javax.xml.namespace.QName;
 import javax.xml.stream.XMLEventReader;
-import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamException;
-import javax.xml.stream.events.Attribute;
 import javax.xml.stream.events.StartElement;
-import javax.xml.stream.events.XMLEvent;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.net.URL;
+import java.io.UncheckedIOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
-import java.util.function.Function;
-import java.util.jar.Manifest;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
-import java.util.zip.GZIPInputStream;
+
+import static de.unibi.agbi.biodwh2.neo4j.importer.GraphMLReader.getElementAttribute;
 
 public class Neo4jGraphImporter {
     private static final Logger LOGGER = LogManager.getLogger(Neo4jGraphImporter.class);
-    private static final String RELEASE_URL = "https://api.github.com/repos/BioDWH2/Neo4j-GraphML-Importer/releases";
     private static final int BATCH_SIZE = 1000;
-    private static final Version NEO4J_4_VERSION = new Version(4, 0);
-    private static final Version NEW_INDEX_CREATION_NEO4J_VERSION = new Version(4, 1, 3);
     private static final long TRANSACTION_SIZE = 20000;
+    private static final int MAX_LOGGED_DANGLING_EDGES = 10;
+    private static final int MAX_LOGGED_UNASSIGNED_NODES = 10;
+    private static final int PARTITION_QUEUE_CAPACITY = 16;
 
     private Neo4jGraphImporter() {
     }
 
     public static void main(final String... args) {
         final CmdArgs commandLine = parseCommandLine(args);
-        new Neo4jGraphImporter().run(commandLine);
+        if (!new Neo4jGraphImporter().run(commandLine))
+            System.exit(1);
     }
 
     private static CmdArgs parseCommandLine(final String... args) {
         final var result = new CmdArgs();
         final var cmd = new CommandLine(result);
+        cmd.setCaseInsensitiveEnumValuesAllowed(true);
+        cmd.registerConverter(PartitionRule.class, PartitionRule::fromValue);
         cmd.parseArgs(args);
         return result;
     }
 
-    private void run(final CmdArgs commandLine) {
-        checkForUpdate();
-        if (StringUtils.isNotEmpty(commandLine.inputFilePath) && StringUtils.isNotEmpty(commandLine.endpoint))
-            importGraphML(commandLine.inputFilePath, commandLine.endpoint, commandLine.username, commandLine.password,
-                          parseLabelOptions(commandLine), parseIndices(commandLine.indices));
+    /**
+     * @return false if the requested operation failed and the process should exit with an error code
+     */
+    private boolean run(final CmdArgs commandLine) {
+        final UpdateChecker updateChecker = commandLine.skipUpdateCheck ? null : new UpdateChecker();
+        boolean success = true;
+        if (commandLine.validate && StringUtils.isNotEmpty(commandLine.inputFilePath))
+            success = validateGraphML(commandLine.inputFilePath, getThreadCount(commandLine));
+        else if (StringUtils.isNotEmpty(commandLine.exportFilePath) && StringUtils.isNotEmpty(commandLine.endpoint))
+            success = exportGraphML(commandLine.exportFilePath, commandLine.endpoint, commandLine.username,
+                                    commandLine.password, getThreadCount(commandLine));
+        else if (StringUtils.isNotEmpty(commandLine.cacheFilePath) && StringUtils.isNotEmpty(
+                commandLine.inputFilePath))
+            success = convertGraphML(commandLine.inputFilePath, commandLine.cacheFilePath);
+        else if (StringUtils.isNotEmpty(commandLine.inputFilePath) && StringUtils.isNotEmpty(commandLine.partitions))
+            success = importPartitionedGraphML(commandLine.inputFilePath,
+                                               Partitioning.parsePartitions(commandLine.partitions),
+                                               commandLine.partitionBy == PartitionRule.LABEL_PREFIX,
+                                               commandLine.username, commandLine.password,
+                                               parseLabelOptions(commandLine), parseIndices(commandLine),
+                                               commandLine.indexPhase == IndexPhase.BEFORE,
+                                               getDeadLetterFilePath(commandLine),
+                                               getCrossPartitionEdgesFilePath(commandLine));
+        else if (StringUtils.isNotEmpty(commandLine.inputFilePath) && StringUtils.isNotEmpty(commandLine.endpoint))
+            success = importGraphML(commandLine.inputFilePath, commandLine.endpoint, commandLine.username,
+                                    commandLine.password, parseLabelOptions(commandLine), parseIndices(commandLine),
+                                    commandLine.indexPhase == IndexPhase.BEFORE, getDeadLetterFilePath(commandLine));
         else {
             LOGGER.error("Input and endpoint arguments must be specified");
             printHelp(commandLine);
         }
+        if (updateChecker != null)
+            updateChecker.reportIfUpdateAvailable();
+        return success;
     }
 
-    private void checkForUpdate() {
-        final Version currentVersion = getCurrentVersion();
-        Version mostRecentVersion = null;
-        String mostRecentDownloadUrl = null;
-        final ObjectMapper mapper = new ObjectMapper();
-        try (final var inputStream = new URL(RELEASE_URL).openStream()) {
-            final List<GithubRelease> releases = mapper.readValue(inputStream, new TypeReference<>() {
-            });
-            for (final GithubRelease release : releases) {
-                final Version version = Version.tryParse(release.tagName.replace("v", ""));
-                if (version != null) {
-                    final String jarName = "Neo4j-GraphML-Importer-" + release.tagName + ".jar";
-                    final Optional<GithubAsset> jarAsset = release.assets.stream().filter(
-                            asset -> asset.name.equalsIgnoreCase(jarName)).findFirst();
-                    if (jarAsset.isPresent() && mostRecentVersion == null || version.compareTo(mostRecentVersion) > 0) {
-                        mostRecentVersion = version;
-                        //noinspection OptionalGetWithoutIsPresent
-                        mostRecentDownloadUrl = jarAsset.get().browserDownloadUrl;
-                    }
-                }
-            }
-        } catch (IOException | ClassCastException ignored) {
-        }
-        if (currentVersion == null && mostRecentVersion != null || currentVersion != null && currentVersion.compareTo(
-                mostRecentVersion) < 0) {
-            LOGGER.info("=======================================");
-            LOGGER.info("New version {} of Neo4j-GraphML-Importer is available at:", mostRecentVersion);
-            LOGGER.info(mostRecentDownloadUrl);
-            LOGGER.info("=======================================");
-        }
+    private int getThreadCount(final CmdArgs commandLine) {
+        if (commandLine.threads != null && commandLine.threads > 0)
+            return commandLine.threads;
+        return Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
     }
 
-    private Version getCurrentVersion() {
-        try {
-            final Enumeration<URL> resources = getClass().getClassLoader().getResources("META-INF/MANIFEST.MF");
-            while (resources.hasMoreElements()) {
-                try {
-                    final var manifest = new Manifest(resources.nextElement().openStream());
-                    final Version version = Version.tryParse(manifest.getMainAttributes().getValue("BioDWH2-version"));
-                    if (version != null)
-                        return version;
-                } catch (IOException ignored) {
-                }
-            }
-        } catch (IOException ignored) {
-        }
-        return null;
+    private Path getDeadLetterFilePath(final CmdArgs commandLine) {
+        if (!commandLine.faultTolerant)
+            return null;
+        if (StringUtils.isNotEmpty(commandLine.deadLetterFilePath))
+            return Paths.get(commandLine.deadLetterFilePath);
+        return Paths.get(commandLine.inputFilePath + ".dead-letter.jsonl");
+    }
+
+    private Path getCrossPartitionEdgesFilePath(final CmdArgs commandLine) {
+        if (StringUtils.isNotEmpty(commandLine.crossPartitionEdgesFilePath))
+            return Paths.get(commandLine.crossPartitionEdgesFilePath);
+        return Paths.get(commandLine.inputFilePath + ".cross-partition-edges.jsonl");
     }
 
     private LabelOptions parseLabelOptions(final CmdArgs commandLine) {
@@ -134,112 +128,337 @@ public class Neo4jGraphImporter {
         return result;
     }
 
-    private Map<String, List<String>> parseIndices(final String indicesInput) {
-        final var indices = new HashMap<String, List<String>>();
+    private List<IndexDefinition> parseIndices(final CmdArgs commandLine) {
+        final var indices = new ArrayList<IndexDefinition>();
+        parseIndices(indices, commandLine.indices, false);
+        parseIndices(indices, commandLine.uniqueIndices, true);
+        return indices;
+    }
+
+    private void parseIndices(final List<IndexDefinition> indices, final String indicesInput, final boolean unique) {
         if (indicesInput != null) {
             final String[] parts = StringUtils.split(indicesInput, ';');
             for (final String part : parts) {
                 final String[] labelPropertyKeyParts = StringUtils.split(part, '.');
                 if (labelPropertyKeyParts.length == 2) {
                     final String label = StringUtils.stripStart(labelPropertyKeyParts[0], ":");
-                    if (!indices.containsKey(label))
-                        indices.put(label, new ArrayList<>());
-                    indices.get(label).add(labelPropertyKeyParts[1]);
+                    final List<String> propertyKeys = Arrays.stream(StringUtils.split(labelPropertyKeyParts[1], ','))
+                                                            .map(String::strip).collect(Collectors.toList());
+                    indices.add(new IndexDefinition(label, propertyKeys, unique));
                 } else {
                     LOGGER.warn(
-                            "Failed to parse index '{}' will be ignored. Ensure the syntax <label1>.<property1>;<label2>.<property2>;...",
+                            "Failed to parse index '{}' will be ignored. Ensure the syntax <label1>.<property1>;<label2>.<property2>,<property3>;...",
                             part);
                 }
             }
         }
-        return indices;
     }
 
     private void printHelp(final CmdArgs commandLine) {
         CommandLine.usage(commandLine, System.out);
     }
 
-    private void importGraphML(final String inputFilePath, final String endpoint, final String username,
-                               final String password, final LabelOptions labelOptions,
-                               final Map<String, List<String>> indices) {
+    private boolean validateGraphML(final String inputFilePath, final int threadCount) {
         final Path inputFile = Paths.get(inputFilePath);
         if (!inputFile.toFile().exists()) {
             LOGGER.error("Input file '{}' not found", inputFilePath);
-            return;
+            return false;
         }
-        if (LOGGER.isInfoEnabled())
-            LOGGER.info("Parsing property definitions...");
-        final var nodeCount = new AtomicLong();
-        final var edgeCount = new AtomicLong();
-        handleAllElementsInXMLWithTag(inputFile, "node", (reader, startElement) -> nodeCount.getAndIncrement());
-        handleAllElementsInXMLWithTag(inputFile, "edge", (reader, startElement) -> edgeCount.getAndIncrement());
-        LOGGER.info("{} nodes, {} edges", nodeCount.get(), edgeCount.get());
-        final Map<String, PropertyKey> propertyKeyNameMap = new HashMap<>();
-        handleAllElementsInXMLWithTag(inputFile, "key", (reader, startElement) -> {
-            final PropertyKey property = getPropertyKeyFromElement(startElement);
-            propertyKeyNameMap.put(property.forType() + "|" + property.id(), property);
-        });
-        try (final Driver driver = GraphDatabase.driver(endpoint, getAuthToken(username, password))) {
+        return new GraphValidator(new GraphMLReader(inputFile), threadCount).validate();
+    }
+
+    /**
+     * @return false if the import couldn't be started or not all indices are online
+     */
+    private boolean importGraphML(final String inputFilePath, final String endpoint, final String username,
+                                  final String password, final LabelOptions labelOptions,
+                                  final List<IndexDefinition> indices, final boolean createIndicesBeforeImport,
+                                  final Path deadLetterFilePath) {
+        final Path inputFile = Paths.get(inputFilePath);
+        if (!inputFile.toFile().exists()) {
+            LOGGER.error("Input file '{}' not found", inputFilePath);
+            return false;
+        }
+        final GraphSource graphSource = createGraphSource(inputFile, labelOptions);
+        if (graphSource == null)
+            return false;
+        LOGGER.info("{} nodes, {} edges", graphSource.getNodeCount(), graphSource.getEdgeCount());
+        try (final Driver driver = GraphDatabase.driver(endpoint, getAuthToken(username, password));
+             final DeadLetterWriter deadLetters = deadLetterFilePath != null ? new DeadLetterWriter(
+                     deadLetterFilePath) : null) {
             try (final Session session = driver.session()) {
                 final Version neo4jVersion = getNeo4jKernelVersion(session);
-                final Map<String, Long> nodeIdNeo4jIdMap = importAllNodes(session, inputFile, labelOptions,
-                                                                          propertyKeyNameMap, nodeCount);
-                importAllEdges(session, inputFile, labelOptions, propertyKeyNameMap, edgeCount, nodeIdNeo4jIdMap);
-                createIndices(neo4jVersion, session, indices);
+                final var indexBuilder = new IndexBuilder(neo4jVersion, indices);
+                if (createIndicesBeforeImport) {
+                    indexBuilder.createIndices(session);
+                    if (!indexBuilder.awaitIndicesOnline(session)) {
+                        LOGGER.error("Import aborted because not all indices are online");
+                        return false;
+                    }
+                }
+                final NodeIdMapping nodeIdMapping = importAllNodes(session, graphSource, deadLetters);
+                importAllEdges(session, graphSource, nodeIdMapping, deadLetters);
+                if (!createIndicesBeforeImport) {
+                    indexBuilder.createIndices(session);
+                    if (!indexBuilder.awaitIndicesOnline(session)) {
+                        LOGGER.error("Graph was imported, but not all indices are online");
+                        return false;
+                    }
+                }
+            } finally {
+                if (deadLetters != null && deadLetters.getCount() > 0)
+                    LOGGER.warn("{} elements failed to import and were written to '{}'", deadLetters.getCount(),
+                                deadLetters.getFilePath());
             }
         }
+        return true;
     }
 
-    private void handleAllElementsInXMLWithTag(final Path inputFilePath, final String tagName,
-                                               final Callback<XMLEventReader, StartElement> callback) {
-        try (final var stream = openInputFile(inputFilePath)) {
-            final XMLEventReader reader = XMLInputFactory.newInstance().createXMLEventReader(stream);
-            while (reader.hasNext()) {
-                final XMLEvent nextEvent = reader.nextEvent();
-                if (nextEvent != null && nextEvent.isStartElement()) {
-                    final StartElement startElement = nextEvent.asStartElement();
-                    if (startElement.getName().getLocalPart().equals(tagName))
-                        callback.callback(reader, startElement);
+    /**
+     * @return false if the import couldn't be started. Failures of a partition are thrown.
+     */
+    private boolean importPartitionedGraphML(final String inputFilePath,
+                                          final List<PartitionDefinition> partitionDefinitions,
+                                          final boolean partitionByLabelPrefix, final String username,
+                                          final String password, final LabelOptions labelOptions,
+                                          final List<IndexDefinition> indices,
+                                          final boolean createIndicesBeforeImport, final Path deadLetterFilePath,
+                                          final Path crossPartitionEdgesFilePath) {
+        final Path inputFile = Paths.get(inputFilePath);
+        if (!inputFile.toFile().exists()) {
+            LOGGER.error("Input file '{}' not found", inputFilePath);
+            return false;
+        }
+        if (partitionDefinitions.isEmpty()) {
+            LOGGER.error("No valid partitions specified");
+            return false;
+        }
+        final GraphSource graphSource = createGraphSource(inputFile, labelOptions);
+        if (graphSource == null)
+            return false;
+        LOGGER.info("{} nodes, {} edges", graphSource.getNodeCount(), graphSource.getEdgeCount());
+        final var partitions = new ArrayList<Partition>();
+        final ExecutorService executor = Executors.newFixedThreadPool(partitionDefinitions.size());
+        try (final DeadLetterWriter deadLetters = deadLetterFilePath != null ? new DeadLetterWriter(
+                deadLetterFilePath) : null;
+             final JsonLinesWriter crossPartitionEdges = new JsonLinesWriter(crossPartitionEdgesFilePath)) {
+            for (final PartitionDefinition definition : partitionDefinitions) {
+                partitions.add(new Partition(partitions.size(), definition, username, password, graphSource));
+                if (LOGGER.isInfoEnabled())
+                    LOGGER.info("Partition {}: {}{}", partitions.size() - 1, definition,
+                                partitionByLabelPrefix ? " (label prefix: " + definition.labelPrefix() + ")" : "");
+            }
+            final var nodeFutures = new ArrayList<Future<?>>();
+            for (final Partition partition : partitions)
+                nodeFutures.add(executor.submit(
+                        () -> partition.importNodes(indices, createIndicesBeforeImport, deadLetters)));
+            dispatchNodes(graphSource, partitions, nodeFutures, partitionByLabelPrefix, deadLetters);
+            awaitPartitions(partitions, nodeFutures);
+            final var edgeFutures = new ArrayList<Future<?>>();
+            for (final Partition partition : partitions)
+                edgeFutures.add(executor.submit(() -> partition.importEdges(createIndicesBeforeImport, deadLetters)));
+            dispatchEdges(graphSource, partitions, edgeFutures, partitionByLabelPrefix, deadLetters,
+                          crossPartitionEdges);
+            awaitPartitions(partitions, edgeFutures);
+            if (crossPartitionEdges.getCount() > 0)
+                LOGGER.info("{} edges between partitions were written to '{}'", crossPartitionEdges.getCount(),
+                            crossPartitionEdges.getFilePath());
+            if (deadLetters != null && deadLetters.getCount() > 0)
+                LOGGER.warn("{} elements failed to import and were written to '{}'", deadLetters.getCount(),
+                            deadLetters.getFilePath());
+        } finally {
+            executor.shutdownNow();
+            for (final Partition partition : partitions)
+                partition.close();
+        }
+        return true;
+    }
+
+    /**
+     * Reads all nodes once and passes them in chunks to the partition selected by the partitioning rule.
+     */
+    private void dispatchNodes(final GraphSource graphSource, final List<Partition> partitions,
+                               final List<Future<?>> futures, final boolean partitionByLabelPrefix,
+                               final DeadLetterWriter deadLetters) {
+        final var chunks = new ArrayList<List<Node>>();
+        for (int i = 0; i < partitions.size(); i++)
+            chunks.add(new ArrayList<>());
+        final List<PartitionDefinition> definitions = partitions.stream().map(partition -> partition.definition)
+                                                                .collect(Collectors.toList());
+        final var unassignedCount = new AtomicLong();
+        graphSource.forEachNode(deadLetters, node -> {
+            if (node == null)
+                return;
+            final int index = partitionByLabelPrefix ? Partitioning.getLabelPrefixPartition(definitions, node.labels) :
+                              Partitioning.getHashPartition(partitions.size(), node.id);
+            if (index < 0) {
+                if (unassignedCount.incrementAndGet() <= MAX_LOGGED_UNASSIGNED_NODES && LOGGER.isWarnEnabled())
+                    LOGGER.warn("Skipping node '{}' with labels '{}' because no partition matches", node.id,
+                                node.labels);
+                if (deadLetters != null)
+                    deadLetters.write("node", node.describe(), "No partition matches the node labels");
+                return;
+            }
+            chunks.get(index).add(node);
+            if (chunks.get(index).size() >= BATCH_SIZE) {
+                putChunk(partitions.get(index).source.nodeChunks, chunks.get(index), partitions.get(index),
+                         futures.get(index));
+                chunks.set(index, new ArrayList<>());
+            }
+        });
+        for (int i = 0; i < partitions.size(); i++) {
+            if (!chunks.get(i).isEmpty())
+                putChunk(partitions.get(i).source.nodeChunks, chunks.get(i), partitions.get(i), futures.get(i));
+            putChunk(partitions.get(i).source.nodeChunks, Collections.emptyList(), partitions.get(i),
+                     futures.get(i));
+        }
+        if (unassignedCount.get() > 0)
+            LOGGER.warn("Skipped {} nodes without matching partition", unassignedCount.get());
+    }
+
+    /**
+     * Passes edges to the partition of their source and target node. Edges between partitions are written to a
+     * separate file together with the Neo4j ids of both nodes, so they can be connected via proxy nodes later.
+     * Edges with a missing node are passed on and skipped by the partition like in the regular import.
+     */
+    private void dispatchEdges(final GraphSource graphSource, final List<Partition> partitions,
+                               final List<Future<?>> futures, final boolean partitionByLabelPrefix,
+                               final DeadLetterWriter deadLetters, final JsonLinesWriter crossPartitionEdges) {
+        final var chunks = new ArrayList<List<Edge>>();
+        for (int i = 0; i < partitions.size(); i++)
+            chunks.add(new ArrayList<>());
+        graphSource.forEachEdge(deadLetters, edge -> {
+            if (edge == null)
+                return;
+            final int sourceIndex = getEndpointPartition(partitions, edge, true, partitionByLabelPrefix);
+            final int targetIndex = getEndpointPartition(partitions, edge, false, partitionByLabelPrefix);
+            if (sourceIndex >= 0 && targetIndex >= 0 && sourceIndex != targetIndex) {
+                final Partition sourcePartition = partitions.get(sourceIndex);
+                final Partition targetPartition = partitions.get(targetIndex);
+                final Map<String, Object> element = edge.describe();
+                element.put("sourcePartition", sourcePartition.definition.toString());
+                element.put("sourceNeo4jId", sourcePartition.nodeIdMapping.getSourceId(edge));
+                element.put("targetPartition", targetPartition.definition.toString());
+                element.put("targetNeo4jId", targetPartition.nodeIdMapping.getTargetId(edge));
+                crossPartitionEdges.write(element);
+                return;
+            }
+            final int index = Math.max(0, Math.max(sourceIndex, targetIndex));
+            chunks.get(index).add(edge);
+            if (chunks.get(index).size() >= BATCH_SIZE) {
+                putChunk(partitions.get(index).source.edgeChunks, chunks.get(index), partitions.get(index),
+                         futures.get(index));
+                chunks.set(index, new ArrayList<>());
+            }
+        });
+        for (int i = 0; i < partitions.size(); i++) {
+            if (!chunks.get(i).isEmpty())
+                putChunk(partitions.get(i).source.edgeChunks, chunks.get(i), partitions.get(i), futures.get(i));
+            putChunk(partitions.get(i).source.edgeChunks, Collections.emptyList(), partitions.get(i),
+                     futures.get(i));
+        }
+    }
+
+    /**
+     * Returns the partition the source or target node of the edge was imported into or -1 if the node is missing.
+     */
+    private int getEndpointPartition(final List<Partition> partitions, final Edge edge, final boolean source,
+                                     final boolean partitionByLabelPrefix) {
+        if (!partitionByLabelPrefix) {
+            final int index = Partitioning.getHashPartition(partitions.size(), source ? edge.source : edge.target);
+            return partitions.get(index).isEndpointImported(edge, source) ? index : -1;
+        }
+        for (final Partition partition : partitions)
+            if (partition.isEndpointImported(edge, source))
+                return partition.index;
+        return -1;
+    }
+
+    /**
+     * Blocks while the queue of the partition is full. Fails if the partition stopped consuming because of an error.
+     */
+    private <T> void putChunk(final BlockingQueue<List<T>> queue, final List<T> chunk, final Partition partition,
+                              final Future<?> future) {
+        try {
+            while (!queue.offer(chunk, 1, TimeUnit.SECONDS)) {
+                if (future.isDone()) {
+                    awaitPartitions(List.of(partition), List.of(future));
+                    throw new IllegalStateException("Import into partition '" + partition.definition + "' stopped");
                 }
             }
-        } catch (IOException | XMLStreamException e) {
-            LOGGER.error("Failed to load GraphML", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Partitioned import was interrupted", e);
         }
     }
 
-    private InputStream openInputFile(final Path inputFilePath) throws IOException {
-        final var stream = new FileInputStream(inputFilePath.toFile());
-        if (inputFilePath.toString().toLowerCase().endsWith(".gz")) {
-            return new GZIPInputStream(stream);
+    private void awaitPartitions(final List<Partition> partitions, final List<Future<?>> futures) {
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                futures.get(i).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Partitioned import was interrupted", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Import into partition '" + partitions.get(i).definition + "' failed",
+                                                e.getCause());
+            }
         }
-        return stream;
     }
 
-    private PropertyKey getPropertyKeyFromElement(final StartElement element) {
-        final String id = getElementAttribute(element, "id");
-        final String forType = getElementAttribute(element, "for");
-        final String attributeName = getElementAttribute(element, "attr.name");
-        final String attributeList = getElementAttribute(element, "attr.list");
-        final String attributeType = getElementAttribute(element, "attr.type");
-        return new PropertyKey(id, forType, attributeName, attributeType, attributeList);
+    private GraphSource createGraphSource(final Path inputFile, final LabelOptions labelOptions) {
+        if (GraphCacheFormat.isCacheFile(inputFile)) {
+            if (LOGGER.isInfoEnabled())
+                LOGGER.info("Reading graph cache header...");
+            try {
+                return new GraphCacheSource(new GraphCacheReader(inputFile), labelOptions);
+            } catch (IOException e) {
+                LOGGER.error("Failed to load graph cache", e);
+                return null;
+            }
+        }
+        if (LOGGER.isInfoEnabled())
+            LOGGER.info("Parsing property definitions...");
+        return new GraphMLSource(new GraphMLReader(inputFile), labelOptions);
     }
 
-    private String getElementAttribute(final StartElement element, final String name) {
-        final Attribute attribute = element.getAttributeByName(QName.valueOf(name));
-        return attribute != null ? attribute.getValue() : null;
+    private boolean convertGraphML(final String inputFilePath, final String cacheFilePath) {
+        final Path inputFile = Paths.get(inputFilePath);
+        if (!inputFile.toFile().exists()) {
+            LOGGER.error("Input file '{}' not found", inputFilePath);
+            return false;
+        }
+        try {
+            new GraphCacheWriter(new GraphMLReader(inputFile)).convert(Paths.get(cacheFilePath));
+            return true;
+        } catch (IOException e) {
+            LOGGER.error("Failed to convert GraphML into graph cache", e);
+            return false;
+        }
+    }
+
+    private boolean exportGraphML(final String outputFilePath, final String endpoint, final String username,
+                                  final String password, final int threadCount) {
+        try (final Driver driver = GraphDatabase.driver(endpoint, getAuthToken(username, password))) {
+            new GraphMLExporter(driver, threadCount).export(Paths.get(outputFilePath));
+            return true;
+        } catch (IOException | Neo4jException e) {
+            LOGGER.error("Failed to export graph into GraphML", e);
+            return false;
+        }
     }
 
     private AuthToken getAuthToken(final String username, final String password) {
         return StringUtils.isEmpty(username) ? AuthTokens.none() : AuthTokens.basic(username, password);
     }
 
-    private Node parseNode(final XMLEventReader reader, final StartElement element,
-                           final Map<String, PropertyKey> propertyKeyNameMap,
+    private Node parseNode(final GraphMLReader graphMLReader, final XMLEventReader reader,
+                           final StartElement element, final Map<String, PropertyKey> propertyKeyNameMap,
                            final LabelOptions labelOptions) throws XMLStreamException {
         Node result = new Node();
         result.id = getElementAttribute(element, "id");
         result.labels = modifyNodeLabels(getElementAttribute(element, "labels"), labelOptions);
-        result.properties = collectNodeOrEdgeProperties(reader, propertyKeyNameMap, "node");
+        result.properties = graphMLReader.collectNodeOrEdgeProperties(reader, propertyKeyNameMap, "node");
         return result;
     }
 
@@ -263,111 +482,6 @@ public class Neo4jGraphImporter {
         return modifiedLabels.toString();
     }
 
-    private Map<String, Object> collectNodeOrEdgeProperties(final XMLEventReader reader,
-                                                            final Map<String, PropertyKey> propertyKeyNameMap,
-                                                            final String forType) throws XMLStreamException {
-        final var properties = new HashMap<String, Object>();
-        while (reader.hasNext()) {
-            final XMLEvent nextEvent = tryNextEvent(reader);
-            if (nextEvent == null)
-                break;
-            if (nextEvent.isStartElement()) {
-                final StartElement startChildElement = nextEvent.asStartElement();
-                final String propertyKey = getElementAttribute(startChildElement, "key");
-                final String forTypePropertyKey = forType + "|" + propertyKey;
-                if (!propertyKeyNameMap.containsKey(forTypePropertyKey)) {
-                    final PropertyKey property = new PropertyKey(propertyKey, forType, propertyKey, "string", null);
-                    propertyKeyNameMap.put(forTypePropertyKey, property);
-                    if (LOGGER.isInfoEnabled())
-                        LOGGER.warn("{} property '{}' wasn't defined, fallback to string property", forType,
-                                    propertyKey);
-                }
-                final PropertyKey property = propertyKeyNameMap.get(forTypePropertyKey);
-                final String propertyName = property.attributeName();
-                if (!propertyName.equals("labels") && !propertyName.equals("label"))
-                    properties.put(propertyName, parsePropertyValue(property, reader));
-            } else if (nextEvent.isEndElement()) {
-                final String tagName = nextEvent.asEndElement().getName().getLocalPart();
-                if (tagName.equalsIgnoreCase("node") || tagName.equalsIgnoreCase("edge"))
-                    break;
-            }
-        }
-        return properties;
-    }
-
-    private XMLEvent tryNextEvent(final XMLEventReader reader) throws XMLStreamException {
-        try {
-            return reader.nextEvent();
-        } catch (XMLStreamException e) {
-            if (e instanceof WstxEOFException || e.getMessage().contains("Unexpected EOF"))
-                throw e;
-            LOGGER.warn("Failed to read XML event", e);
-            return null;
-        }
-    }
-
-    private Object parsePropertyValue(final PropertyKey type, final XMLEventReader reader) {
-        String value = tryGetElementText(reader);
-        if (value == null)
-            return null;
-        if (type.attributeList() != null) {
-            return parsePropertyListValue(type, value);
-        } else {
-            return switch (type.attributeType().toLowerCase(Locale.US)) {
-                case "boolean" -> Boolean.valueOf(value);
-                case "int" -> Integer.valueOf(value);
-                case "long" -> Long.valueOf(value);
-                case "float" -> Float.valueOf(value);
-                case "double" -> Double.valueOf(value);
-                default -> value;
-            };
-        }
-    }
-
-    private Object parsePropertyListValue(final PropertyKey type, String value) {
-        value = StringUtils.strip(value, "[] \t\n\r");
-        return switch (type.attributeList().toLowerCase(Locale.US)) {
-            case "boolean" -> convertStringToTypeList(value, Boolean::valueOf);
-            case "int" -> convertStringToTypeList(value, Integer::valueOf);
-            case "long" -> convertStringToTypeList(value, Long::valueOf);
-            case "float" -> convertStringToTypeList(value, Float::valueOf);
-            case "double" -> convertStringToTypeList(value, Double::valueOf);
-            default -> {
-                boolean insideString = false;
-                int start = 0;
-                int escapeCount = 0;
-                List<String> parts = new ArrayList<>();
-                for (int i = 0; i < value.length(); i++) {
-                    char currentChar = value.charAt(i);
-                    if (currentChar == '"') {
-                        if (insideString && escapeCount % 2 == 0) {
-                            parts.add(value.substring(start, i).replace("\\\"", "\""));
-                            insideString = false;
-                        } else if (!insideString) {
-                            insideString = true;
-                            start = i + 1;
-                        }
-                    }
-                    escapeCount = currentChar == '\\' ? escapeCount + 1 : 0;
-                }
-                yield parts;
-            }
-        };
-    }
-
-    private <R> List<R> convertStringToTypeList(final String value, Function<String, R> mapper) {
-        return Arrays.stream(StringUtils.split(value, ',')).map(String::strip).map(mapper).collect(Collectors.toList());
-    }
-
-    private String tryGetElementText(final XMLEventReader reader) {
-        try {
-            return reader.getElementText();
-        } catch (XMLStreamException e) {
-            LOGGER.warn("Failed to read XML element text", e);
-            return null;
-        }
-    }
-
     private Version getNeo4jKernelVersion(final Session session) {
         final Transaction tx = session.beginTransaction();
         final Result result = tx.run("call dbms.components() yield versions, edition");
@@ -389,88 +503,191 @@ public class Neo4jGraphImporter {
         return new Version(0, 0);
     }
 
-    private Map<String, Long> importAllNodes(final Session session, final Path inputFile,
-                                             final LabelOptions labelOptions,
-                                             final Map<String, PropertyKey> propertyKeyNameMap,
-                                             final AtomicLong nodeCount) {
-        final var tx = new AtomicReference<>(session.beginTransaction());
-        final var nodeIdNeo4jIdMap = new HashMap<String, Long>();
+    private NodeIdMapping importAllNodes(final Session session, final GraphSource graphSource,
+                                         final DeadLetterWriter deadLetters) {
+        final var tx = new AtomicReference<>(beginTransaction(session, deadLetters));
+        final NodeIdMapping nodeIdMapping = graphSource.createNodeIdMapping();
         final var counter = new AtomicLong();
         final var perLabelBatches = new HashMap<String, List<Node>>();
-        handleAllElementsInXMLWithTag(inputFile, "node", (reader, startElement) -> {
-            final String labels = modifyNodeLabels(getElementAttribute(startElement, "labels"), labelOptions);
-            if (!perLabelBatches.containsKey(labels))
-                perLabelBatches.put(labels, new ArrayList<>());
-            final List<Node> batch = perLabelBatches.get(labels);
-            batch.add(parseNode(reader, startElement, propertyKeyNameMap, labelOptions));
-            if (batch.size() >= BATCH_SIZE) {
-                nodeIdNeo4jIdMap.putAll(runCreateNodeBatch(tx.get(), batch, labels));
-                batch.clear();
+        graphSource.forEachNode(deadLetters, node -> {
+            if (node != null) {
+                if (!perLabelBatches.containsKey(node.labels))
+                    perLabelBatches.put(node.labels, new ArrayList<>());
+                final List<Node> batch = perLabelBatches.get(node.labels);
+                batch.add(node);
+                if (batch.size() >= BATCH_SIZE) {
+                    writeNodeBatch(session, tx.get(), batch, node.labels, nodeIdMapping, deadLetters);
+                    batch.clear();
+                }
             }
             final long currentCount = counter.incrementAndGet();
             if (currentCount % 5000 == 0)
-                LOGGER.info("Nodes progress: {}/{}", currentCount, nodeCount.get());
-            if (currentCount % TRANSACTION_SIZE == 0) {
-                tx.get().commit();
-                tx.set(session.beginTransaction());
-            }
+                LOGGER.info("Nodes progress: {}/{}", currentCount, graphSource.getNodeCount());
+            if (currentCount % TRANSACTION_SIZE == 0)
+                renewTransaction(session, tx);
         });
         for (final String labels : perLabelBatches.keySet()) {
             final List<Node> batch = perLabelBatches.get(labels);
             if (!batch.isEmpty())
-                nodeIdNeo4jIdMap.putAll(runCreateNodeBatch(tx.get(), batch, labels));
+                writeNodeBatch(session, tx.get(), batch, labels, nodeIdMapping, deadLetters);
         }
-        tx.get().commit();
-        return nodeIdNeo4jIdMap;
+        if (tx.get() != null)
+            tx.get().commit();
+        return nodeIdMapping;
+    }
+
+    private void writeNodeBatch(final Session session, final Transaction tx, final List<Node> batch,
+                                final String labels, final NodeIdMapping nodeIdMapping,
+                                final DeadLetterWriter deadLetters) {
+        if (deadLetters == null)
+            runCreateNodeBatch(tx, batch, labels).forEach(nodeIdMapping::put);
+        else
+            writeBatchIsolatingFailures(session, batch, (t, nodes) -> runCreateNodeBatch(t, nodes, labels),
+                                        result -> result.forEach(nodeIdMapping::put), "node", deadLetters);
     }
 
-    private Map<String, Long> runCreateNodeBatch(final Transaction tx, final List<Node> nodes, final String labels) {
+    /**
+     * In fault tolerant mode every batch is written in its own transaction, so no long-running transaction is used.
+     */
+    private Transaction beginTransaction(final Session session, final DeadLetterWriter deadLetters) {
+        return deadLetters == null ? session.beginTransaction() : null;
+    }
+
+    private void renewTransaction(final Session session, final AtomicReference<Transaction> tx) {
+        if (tx.get() != null) {
+            tx.get().commit();
+            tx.set(session.beginTransaction());
+        }
+    }
+
+    private <T> T tryParseElement(final Parser<T> parser, final String type, final StartElement element,
+                                  final DeadLetterWriter deadLetters) throws XMLStreamException {
+        if (deadLetters == null)
+            return parser.parse();
+        try {
+            return parser.parse();
+        } catch (InvalidPropertyValueException e) {
+            final var attributes = new LinkedHashMap<String, Object>();
+            element.getAttributes().forEachRemaining(
+                    attribute -> attributes.put(attribute.getName().getLocalPart(), attribute.getValue()));
+            writeInvalidValue(type, attributes, e, deadLetters);
+            return null;
+        }
+    }
+
+    private <T extends PropertyContainer> T rejectInvalidValue(final String type, final T element,
+                                                               final InvalidPropertyValueException e,
+                                                               final DeadLetterWriter deadLetters) {
+        if (deadLetters == null)
+            throw e;
+        final Map<String, Object> attributes = element.describe();
+        attributes.remove("properties");
+        writeInvalidValue(type, attributes, e, deadLetters);
+        return null;
+    }
+
+    private void writeInvalidValue(final String type, final Map<String, Object> attributes,
+                                   final InvalidPropertyValueException e, final DeadLetterWriter deadLetters) {
+        attributes.put("property", e.getPropertyKey().attributeName());
+        attributes.put("value", e.getRawValue());
+        deadLetters.write(type, attributes, "Failed to parse property value: " + e.getMessage());
+    }
+
+    /**
+     * Writes the batch in its own transaction. If the server rejects the batch because of its data, it is split in
+     * halves and each half is retried until the offending elements are isolated and written to the dead-letter file.
+     */
+    private <T extends PropertyContainer, R> void writeBatchIsolatingFailures(final Session session,
+                                                                              final List<T> batch,
+                                                                              final BatchWriter<T, R> writer,
+                                                                              final Consumer<R> committedConsumer,
+                                                                              final String type,
+                                                                              final DeadLetterWriter deadLetters) {
+        BatchFailureIsolator.write(batch, elements -> {
+            try (final Transaction tx = session.beginTransaction()) {
+                final R result = writer.write(tx, elements);
+                tx.commit();
+                return result;
+            }
+        }, committedConsumer, (element, reason) -> deadLetters.write(type, element.describe(), reason));
+    }
+
+    /**
+     * @return the Neo4j id of every created node mapped by the node instance
+     */
+    private Map<Node, Long> runCreateNodeBatch(final Transaction tx, final List<Node> nodes, final String labels) {
         final var batch = new HashMap<String, Object>();
         final var batchList = new ArrayList<Map<String, Object>>();
         batch.put("batch", batchList);
-        for (final Node node : nodes) {
+        for (int i = 0; i < nodes.size(); i++) {
             final var nodeMap = new HashMap<String, Object>();
-            nodeMap.put("id", node.id);
-            nodeMap.put("properties", node.properties);
+            nodeMap.put("index", i);
+            nodeMap.put("properties", nodes.get(i).properties);
             batchList.add(nodeMap);
         }
-        final var nodeIdNeo4jIdMap = new HashMap<String, Long>();
+        final var nodeNeo4jIdMap = new IdentityHashMap<Node, Long>();
         final Result result = tx.run(
-                "UNWIND $batch as row\nCREATE (n" + labels + ")\nSET n += row.properties\nRETURN row.id, id(n)", batch);
-        result.stream().forEach(r -> nodeIdNeo4jIdMap.put(r.get(0).asString(), r.get(1).asLong()));
-        return nodeIdNeo4jIdMap;
+                "UNWIND $batch as row\nCREATE (n" + labels + ")\nSET n += row.properties\nRETURN row.index, id(n)",
+                batch);
+        result.stream().forEach(r -> nodeNeo4jIdMap.put(nodes.get(r.get(0).asInt()), r.get(1).asLong()));
+        return nodeNeo4jIdMap;
     }
 
-    private void importAllEdges(final Session session, final Path inputFile, final LabelOptions labelOptions,
-                                final Map<String, PropertyKey> propertyKeyNameMap, final AtomicLong edgeCount,
-                                final Map<String, Long> nodeIdNeo4jIdMap) {
-        final var tx = new AtomicReference<>(session.beginTransaction());
+    private void importAllEdges(final Session session, final GraphSource graphSource,
+                                final NodeIdMapping nodeIdMapping, final DeadLetterWriter deadLetters) {
+        final var tx = new AtomicReference<>(beginTransaction(session, deadLetters));
         final var counter = new AtomicLong();
+        final var danglingEdgeCount = new AtomicLong();
         final var perLabelBatches = new HashMap<String, List<Edge>>();
-        handleAllElementsInXMLWithTag(inputFile, "edge", (reader, startElement) -> {
-            final String edgeLabel = modifyEdgeLabel(getElementAttribute(startElement, "label"), labelOptions);
-            if (!perLabelBatches.containsKey(edgeLabel))
-                perLabelBatches.put(edgeLabel, new ArrayList<>());
-            final List<Edge> batch = perLabelBatches.get(edgeLabel);
-            batch.add(parseEdge(reader, startElement, propertyKeyNameMap, labelOptions));
-            if (batch.size() >= BATCH_SIZE) {
-                runCreateEdgeBatch(tx.get(), batch, edgeLabel, nodeIdNeo4jIdMap);
-                batch.clear();
+        graphSource.forEachEdge(deadLetters, edge -> {
+            if (edge != null && isDanglingEdge(edge, nodeIdMapping)) {
+                if (danglingEdgeCount.incrementAndGet() <= MAX_LOGGED_DANGLING_EDGES && LOGGER.isWarnEnabled())
+                    LOGGER.warn("Skipping edge '{}' from '{}' to '{}' because a node is missing", edge.id,
+                                edge.source, edge.target);
+                if (deadLetters != null)
+                    deadLetters.write("edge", edge.describe(), "Source or target node not found");
+            } else if (edge != null) {
+                if (!perLabelBatches.containsKey(edge.label))
+                    perLabelBatches.put(edge.label, new ArrayList<>());
+                final List<Edge> batch = perLabelBatches.get(edge.label);
+                batch.add(edge);
+                if (batch.size() >= BATCH_SIZE) {
+                    writeEdgeBatch(session, tx.get(), batch, edge.label, nodeIdMapping, deadLetters);
+                    batch.clear();
+                }
             }
             final long currentCount = counter.incrementAndGet();
             if (currentCount % 5000 == 0)
-                LOGGER.info("Edges progress: {}/{}", currentCount, edgeCount.get());
-            if (currentCount % TRANSACTION_SIZE == 0) {
-                tx.get().commit();
-                tx.set(session.beginTransaction());
-            }
+                LOGGER.info("Edges progress: {}/{}", currentCount, graphSource.getEdgeCount());
+            if (currentCount % TRANSACTION_SIZE == 0)
+                renewTransaction(session, tx);
         });
         for (final String edgeLabel : perLabelBatches.keySet()) {
             final List<Edge> batch = perLabelBatches.get(edgeLabel);
             if (!batch.isEmpty())
-                runCreateEdgeBatch(tx.get(), batch, edgeLabel, nodeIdNeo4jIdMap);
+                writeEdgeBatch(session, tx.get(), batch, edgeLabel, nodeIdMapping, deadLetters);
         }
-        tx.get().commit();
+        if (tx.get() != null)
+            tx.get().commit();
+        if (danglingEdgeCount.get() > 0)
+            LOGGER.warn("Skipped {} edges with missing source or target node", danglingEdgeCount.get());
+    }
+
+    private boolean isDanglingEdge(final Edge edge, final NodeIdMapping nodeIdMapping) {
+        return nodeIdMapping.getSourceId(edge) == null || nodeIdMapping.getTargetId(edge) == null;
+    }
+
+    private void writeEdgeBatch(final Session session, final Transaction tx, final List<Edge> batch,
+                                final String label, final NodeIdMapping nodeIdMapping,
+                                final DeadLetterWriter deadLetters) {
+        if (deadLetters == null)
+            runCreateEdgeBatch(tx, batch, label, nodeIdMapping);
+        else
+            writeBatchIsolatingFailures(session, batch, (t, edges) -> {
+                runCreateEdgeBatch(t, edges, label, nodeIdMapping);
+                return null;
+            }, result -> {
+            }, "edge", deadLetters);
     }
 
     private String modifyEdgeLabel(final String label, final LabelOptions labelOptions) {
@@ -490,26 +707,27 @@ public class Neo4jGraphImporter {
         return modifiedLabels.toString();
     }
 
-    private Edge parseEdge(final XMLEventReader reader, final StartElement element,
-                           final Map<String, PropertyKey> propertyKeyNameMap,
+    private Edge parseEdge(final GraphMLReader graphMLReader, final XMLEventReader reader,
+                           final StartElement element, final Map<String, PropertyKey> propertyKeyNameMap,
                            final LabelOptions labelOptions) throws XMLStreamException {
         final var result = new Edge();
         result.label = modifyEdgeLabel(getElementAttribute(element, "label"), labelOptions);
+        result.id = getElementAttribute(element, "id");
         result.source = getElementAttribute(element, "source");
         result.target = getElementAttribute(element, "target");
-        result.properties = collectNodeOrEdgeProperties(reader, propertyKeyNameMap, "edge");
+        result.properties = graphMLReader.collectNodeOrEdgeProperties(reader, propertyKeyNameMap, "edge");
         return result;
     }
 
     private void runCreateEdgeBatch(final Transaction tx, final List<Edge> edges, String label,
-                                    final Map<String, Long> nodeIdNeo4jIdMap) {
+                                    final NodeIdMapping nodeIdMapping) {
         final Map<String, Object> batch = new HashMap<>();
         final List<Map<String, Object>> batchList = new ArrayList<>();
         batch.put("batch", batchList);
         for (final Edge edge : edges) {
             final Map<String, Object> nodeMap = new HashMap<>();
-            nodeMap.put("source", nodeIdNeo4jIdMap.get(edge.source));
-            nodeMap.put("target", nodeIdNeo4jIdMap.get(edge.target));
+            nodeMap.put("source", nodeIdMapping.getSourceId(edge));
+            nodeMap.put("target", nodeIdMapping.getTargetId(edge));
             nodeMap.put("properties", edge.properties);
             batchList.add(nodeMap);
         }
@@ -519,52 +737,316 @@ public class Neo4jGraphImporter {
                label + "]->(b)\nSET e += row.properties", batch);
     }
 
-    private void createIndices(final Version neo4jVersion, final Session session,
-                               final Map<String, List<String>> indices) {
-        final boolean useNewIndexCreation = neo4jVersion != null && neo4jVersion.compareTo(
-                NEW_INDEX_CREATION_NEO4J_VERSION) >= 0;
-        final Map<String, Set<String>> existingIndices = useNewIndexCreation ? new HashMap<>() : getExistingIndices(
-                neo4jVersion, session);
-        final Transaction tx = session.beginTransaction();
-        for (final String label : indices.keySet()) {
-            final List<String> propertyKeys = indices.get(label);
-            for (final String propertyKey : propertyKeys) {
-                if (LOGGER.isInfoEnabled())
-                    LOGGER.info("Create index on label '{}' and property '{}'", label, propertyKey);
-                if (useNewIndexCreation)
-                    tx.run("CREATE INDEX IF NOT EXISTS FOR (t:" + label + ") ON (t." + propertyKey + ")");
-                else {
-                    if (!existingIndices.containsKey(label) || !existingIndices.get(label).contains(propertyKey))
-                        tx.run("CREATE INDEX ON :" + label + " (" + propertyKey + ")");
-                    else if (LOGGER.isInfoEnabled())
-                        LOGGER.info("Skipping index creation on :{} ({}) because a similar index already exists", label,
-                                    propertyKey);
-                }
+    private interface ElementHandler<T> {
+        void handle(T element);
+    }
+
+    /**
+     * Source of the nodes and edges to import. Elements which can't be parsed are passed to the handler as null.
+     */
+    private interface GraphSource {
+        long getNodeCount();
+
+        long getEdgeCount();
+
+        NodeIdMapping createNodeIdMapping();
+
+        void forEachNode(DeadLetterWriter deadLetters, ElementHandler<Node> handler);
+
+        void forEachEdge(DeadLetterWriter deadLetters, ElementHandler<Edge> handler);
+    }
+
+    private final class GraphMLSource implements GraphSource {
+        private final GraphMLReader graphMLReader;
+        private final LabelOptions labelOptions;
+        private final Map<String, PropertyKey> propertyKeyNameMap;
+        private final long nodeCount;
+        private final long edgeCount;
+
+        GraphMLSource(final GraphMLReader graphMLReader, final LabelOptions labelOptions) {
+            this.graphMLReader = graphMLReader;
+            this.labelOptions = labelOptions;
+            final var nodeCounter = new AtomicLong();
+            final var edgeCounter = new AtomicLong();
+            graphMLReader.handleAllElementsWithTag("node", (reader, startElement) -> nodeCounter.getAndIncrement());
+            graphMLReader.handleAllElementsWithTag("edge", (reader, startElement) -> edgeCounter.getAndIncrement());
+            nodeCount = nodeCounter.get();
+            edgeCount = edgeCounter.get();
+            propertyKeyNameMap = graphMLReader.readPropertyKeys();
+        }
+
+        @Override
+        public long getNodeCount() {
+            return nodeCount;
+        }
+
+        @Override
+        public long getEdgeCount() {
+            return edgeCount;
+        }
+
+        @Override
+        public NodeIdMapping createNodeIdMapping() {
+            return new NodeIdHashMapping();
+        }
+
+        @Override
+        public void forEachNode(final DeadLetterWriter deadLetters, final ElementHandler<Node> handler) {
+            graphMLReader.handleAllElementsWithTag("node", (reader, startElement) -> handler.handle(tryParseElement(
+                    () -> parseNode(graphMLReader, reader, startElement, propertyKeyNameMap, labelOptions), "node",
+                    startElement, deadLetters)));
+        }
+
+        @Override
+        public void forEachEdge(final DeadLetterWriter deadLetters, final ElementHandler<Edge> handler) {
+            graphMLReader.handleAllElementsWithTag("edge", (reader, startElement) -> handler.handle(tryParseElement(
+                    () -> parseEdge(graphMLReader, reader, startElement, propertyKeyNameMap, labelOptions), "edge",
+                    startElement, deadLetters)));
+        }
+    }
+
+    private final class GraphCacheSource implements GraphSource {
+        private final GraphCacheReader cacheReader;
+        private final LabelOptions labelOptions;
+
+        GraphCacheSource(final GraphCacheReader cacheReader, final LabelOptions labelOptions) {
+            this.cacheReader = cacheReader;
+            this.labelOptions = labelOptions;
+        }
+
+        @Override
+        public long getNodeCount() {
+            return cacheReader.getNodeCount();
+        }
+
+        @Override
+        public long getEdgeCount() {
+            return cacheReader.getEdgeCount();
+        }
+
+        @Override
+        public NodeIdMapping createNodeIdMapping() {
+            return new NodeRowMapping(cacheReader.getNodeCount());
+        }
+
+        /**
+         * Values which didn't match their type during the conversion are reported the same way as while parsing the
+         * GraphML file.
+         */
+        @Override
+        public void forEachNode(final DeadLetterWriter deadLetters, final ElementHandler<Node> handler) {
+            try {
+                cacheReader.forEachNode((row, id, labels, properties, invalidValue) -> {
+                    final var node = new Node();
+                    node.row = row;
+                    node.id = id;
+                    node.labels = modifyNodeLabels(labels, labelOptions);
+                    node.properties = properties;
+                    handler.handle(invalidValue == null ? node : rejectInvalidValue("node", node, invalidValue,
+                                                                                    deadLetters));
+                });
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to load graph cache", e);
+            }
+        }
+
+        @Override
+        public void forEachEdge(final DeadLetterWriter deadLetters, final ElementHandler<Edge> handler) {
+            try {
+                cacheReader.forEachEdge((id, label, sourceRow, source, targetRow, target, properties, invalidValue) -> {
+                    final var edge = new Edge();
+                    edge.id = id;
+                    edge.label = modifyEdgeLabel(label, labelOptions);
+                    edge.sourceRow = sourceRow;
+                    edge.source = source;
+                    edge.targetRow = targetRow;
+                    edge.target = target;
+                    edge.properties = properties;
+                    handler.handle(invalidValue == null ? edge : rejectInvalidValue("edge", edge, invalidValue,
+                                                                                    deadLetters));
+                });
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to load graph cache", e);
             }
         }
-        tx.commit();
     }
 
-    private Map<String, Set<String>> getExistingIndices(final Version neo4jVersion, final Session session) {
-        final var indices = new HashMap<String, Set<String>>();
-        final Transaction tx = session.beginTransaction();
-        final List<Record> queryResult = tx.run("CALL db.indexes").list();
-        for (final Record index : queryResult) {
-            final String labelsKey = NEO4J_4_VERSION.compareTo(neo4jVersion) <= 0 ? "labelsOrTypes" : "tokenNames";
-            final List<String> labels = index.get(labelsKey).asList(Value::asString);
-            final List<String> propertyKeys = index.get("properties").asList(Value::asString);
-            if (labels.size() > 1 && LOGGER.isWarnEnabled())
-                LOGGER.warn("Found multiple labels for index {}. Ignoring all but first label.", index);
-            if (!indices.containsKey(labels.get(0)))
-                indices.put(labels.get(0), new HashSet<>());
-            indices.get(labels.get(0)).addAll(propertyKeys);
+    /**
+     * Target of a partitioned import with its own connection and id map. Nodes and edges are received from the
+     * dispatching thread through the queues of its {@link QueueGraphSource}.
+     */
+    private final class Partition implements AutoCloseable {
+        final int index;
+        final PartitionDefinition definition;
+        final QueueGraphSource source;
+        private final Driver driver;
+        private final Session session;
+        private IndexBuilder indexBuilder;
+        NodeIdMapping nodeIdMapping;
+
+        Partition(final int index, final PartitionDefinition definition, final String username,
+                  final String password, final GraphSource graphSource) {
+            this.index = index;
+            this.definition = definition;
+            source = new QueueGraphSource(graphSource);
+            driver = GraphDatabase.driver(definition.endpoint(), getAuthToken(username, password));
+            session = definition.database() != null ? driver.session(
+                    SessionConfig.forDatabase(definition.database())) : driver.session();
+        }
+
+        void importNodes(final List<IndexDefinition> indices, final boolean createIndicesBeforeImport,
+                         final DeadLetterWriter deadLetters) {
+            indexBuilder = new IndexBuilder(getNeo4jKernelVersion(session), indices);
+            if (createIndicesBeforeImport) {
+                indexBuilder.createIndices(session);
+                awaitIndicesOnline();
+            }
+            nodeIdMapping = importAllNodes(session, source, deadLetters);
+        }
+
+        void importEdges(final boolean createIndicesBeforeImport, final DeadLetterWriter deadLetters) {
+            importAllEdges(session, source, nodeIdMapping, deadLetters);
+            if (!createIndicesBeforeImport) {
+                indexBuilder.createIndices(session);
+                awaitIndicesOnline();
+            }
+        }
+
+        private void awaitIndicesOnline() {
+            if (!indexBuilder.awaitIndicesOnline(session))
+                throw new IllegalStateException("Not all indices of partition '" + definition + "' are online");
+        }
+
+        boolean isEndpointImported(final Edge edge, final boolean source) {
+            return (source ? nodeIdMapping.getSourceId(edge) : nodeIdMapping.getTargetId(edge)) != null;
+        }
+
+        @Override
+        public void close() {
+            session.close();
+            driver.close();
         }
-        tx.commit();
-        return indices;
     }
 
-    private interface Callback<T, U> {
-        void callback(T t, U u) throws XMLStreamException;
+    /**
+     * Graph source fed with chunks of elements of the dispatched source by another thread. An empty chunk marks the
+     * end of the elements. Progress is reported relative to the element counts of the whole graph.
+     */
+    private static final class QueueGraphSource implements GraphSource {
+        final BlockingQueue<List<Node>> nodeChunks = new ArrayBlockingQueue<>(PARTITION_QUEUE_CAPACITY);
+        final BlockingQueue<List<Edge>> edgeChunks = new ArrayBlockingQueue<>(PARTITION_QUEUE_CAPACITY);
+        private final GraphSource dispatchedSource;
+
+        QueueGraphSource(final GraphSource dispatchedSource) {
+            this.dispatchedSource = dispatchedSource;
+        }
+
+        @Override
+        public long getNodeCount() {
+            return dispatchedSource.getNodeCount();
+        }
+
+        @Override
+        public long getEdgeCount() {
+            return dispatchedSource.getEdgeCount();
+        }
+
+        @Override
+        public NodeIdMapping createNodeIdMapping() {
+            return dispatchedSource.createNodeIdMapping();
+        }
+
+        @Override
+        public void forEachNode(final DeadLetterWriter deadLetters, final ElementHandler<Node> handler) {
+            takeAllChunks(nodeChunks, handler);
+        }
+
+        @Override
+        public void forEachEdge(final DeadLetterWriter deadLetters, final ElementHandler<Edge> handler) {
+            takeAllChunks(edgeChunks, handler);
+        }
+
+        private static <T> void takeAllChunks(final BlockingQueue<List<T>> chunks, final ElementHandler<T> handler) {
+            try {
+                List<T> chunk;
+                while (!(chunk = chunks.take()).isEmpty())
+                    for (final T element : chunk)
+                        handler.handle(element);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Partitioned import was interrupted", e);
+            }
+        }
+    }
+
+    /**
+     * Maps imported nodes to their Neo4j id and resolves the Neo4j ids of the source and target nodes of edges. Ids
+     * are null if the node wasn't imported.
+     */
+    private interface NodeIdMapping {
+        void put(Node node, long neo4jId);
+
+        Long getSourceId(Edge edge);
+
+        Long getTargetId(Edge edge);
+    }
+
+    private static final class NodeIdHashMapping implements NodeIdMapping {
+        private final Map<String, Long> nodeIdNeo4jIdMap = new HashMap<>();
+
+        @Override
+        public void put(final Node node, final long neo4jId) {
+            nodeIdNeo4jIdMap.put(node.id, neo4jId);
+        }
+
+        @Override
+        public Long getSourceId(final Edge edge) {
+            return nodeIdNeo4jIdMap.get(edge.source);
+        }
+
+        @Override
+        public Long getTargetId(final Edge edge) {
+            return nodeIdNeo4jIdMap.get(edge.target);
+        }
+    }
+
+    /**
+     * Maps the node rows of a graph cache to Neo4j ids without hashing the GraphML node ids.
+     */
+    private static final class NodeRowMapping implements NodeIdMapping {
+        private final long[] rowNeo4jIds;
+
+        NodeRowMapping(final long nodeCount) {
+            rowNeo4jIds = new long[Math.toIntExact(nodeCount)];
+            Arrays.fill(rowNeo4jIds, -1);
+        }
+
+        @Override
+        public void put(final Node node, final long neo4jId) {
+            rowNeo4jIds[node.row] = neo4jId;
+        }
+
+        @Override
+        public Long getSourceId(final Edge edge) {
+            return getNeo4jId(edge.sourceRow);
+        }
+
+        @Override
+        public Long getTargetId(final Edge edge) {
+            return getNeo4jId(edge.targetRow);
+        }
+
+        private Long getNeo4jId(final int row) {
+            return row >= 0 && rowNeo4jIds[row] >= 0 ? rowNeo4jIds[row] : null;
+        }
+    }
+
+    private interface Parser<T> {
+        T parse() throws XMLStreamException;
+    }
+
+    private interface BatchWriter<T, R> {
+        R write(Transaction tx, List<T> batch);
     }
 
     private static class LabelOptions {
@@ -576,16 +1058,48 @@ public class Neo4jGraphImporter {
 
     private abstract static class PropertyContainer {
         Map<String, Object> properties;
+
+        abstract Map<String, Object> describe();
     }
 
     private static class Node extends PropertyContainer {
+        /**
+         * Row of the node in a graph cache, -1 for nodes parsed from GraphML.
+         */
+        int row = -1;
         String id;
         String labels;
+
+        @Override
+        Map<String, Object> describe() {
+            final var result = new LinkedHashMap<String, Object>();
+            result.put("id", id);
+            result.put("labels", labels);
+            result.put("properties", properties);
+            return result;
+        }
     }
 
     private static class Edge extends PropertyContainer {
+        String id;
         String source;
         String target;
+        /**
+         * Rows of the source and target node in a graph cache, -1 if missing or parsed from GraphML.
+         */
+        int sourceRow = -1;
+        int targetRow = -1;
         String label;
+
+        @Override
+        Map<String, Object> describe() {
+            final var result = new LinkedHashMap<String, Object>();
+            result.put("id", id);
+            result.put("source", source);
+            result.put("target", target);
+            result.put("label", label);
+            result.put("properties", properties);
+            return result;
+        }
     }
 }
@@ -0,0 +1,77 @@
+package de.unibi.agbi.biodwh2.neo4j.importer;
+
+import de.unibi.agbi.biodwh2.neo4j.importer.model.PartitionDefinition;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Parses the partition definitions and assigns nodes to partitions by their index in the definition list.
+ */
+final class Partitioning {
+    private static final Logger LOGGER = LogManager.getLogger(Partitioning.class);
+
+    private Partitioning() {
+    }
+
+    /**
+     * Parses {@code [<labelPrefix>=]<endpoint>[#<database>];...}. A {@code =} is only treated as label prefix
+     * separator if it occurs before the {@code ://} of the endpoint. Invalid parts are logged and ignored.
+     */
+    static List<PartitionDefinition> parsePartitions(final String partitionsInput) {
+        final var partitions = new ArrayList<PartitionDefinition>();
+        for (final String part : StringUtils.split(partitionsInput, ';')) {
+            String endpoint = part.strip();
+            String labelPrefix = null;
+            String database = null;
+            final int prefixIndex = endpoint.indexOf('=');
+            final int schemeIndex = endpoint.indexOf("://");
+            if (prefixIndex >= 0 && (schemeIndex < 0 || prefixIndex < schemeIndex)) {
+                labelPrefix = StringUtils.stripStart(endpoint.substring(0, prefixIndex).strip(), ":");
+                endpoint = endpoint.substring(prefixIndex + 1).strip();
+            }
+            final int databaseIndex = endpoint.lastIndexOf('#');
+            if (databaseIndex >= 0) {
+                database = StringUtils.trimToNull(endpoint.substring(databaseIndex + 1));
+                endpoint = endpoint.substring(0, databaseIndex).strip();
+            }
+            if (StringUtils.isNotEmpty(endpoint))
+                partitions.add(new PartitionDefinition(StringUtils.trimToNull(labelPrefix), endpoint, database));
+            else
+                LOGGER.warn(
+                        "Failed to parse partition '{}' will be ignored. Ensure the syntax [<labelPrefix>=]<endpoint>[#<database>];...",
+                        part);
+        }
+        return partitions;
+    }
+
+    /**
+     * Uses {@link String#hashCode()}, so the assignment of nodes to partitions is stable between runs.
+     */
+    static int getHashPartition(final int partitionCount, final String nodeId) {
+        return Math.floorMod(Objects.hashCode(nodeId), partitionCount);
+    }
+
+    /**
+     * Returns the first partition with a prefix matching any of the node labels. Nodes without match are assigned to
+     * the first partition without label prefix if present, otherwise -1 is returned.
+     */
+    static int getLabelPrefixPartition(final List<PartitionDefinition> partitions, final String labels) {
+        final String[] nodeLabels = StringUtils.split(StringUtils.remove(labels, '`'), ':');
+        int defaultIndex = -1;
+        for (int i = 0; i < partitions.size(); i++) {
+            final String prefix = partitions.get(i).labelPrefix();
+            if (prefix == null) {
+                if (defaultIndex < 0)
+                    defaultIndex = i;
+            } else if (nodeLabels != null && Arrays.stream(nodeLabels).anyMatch(label -> label.startsWith(prefix)))
+                return i;
+        }
+        return defaultIndex;
+    }
+}
@@ -0,0 +1,176 @@
+package de.unibi.agbi.biodwh2.neo4j.importer;
+
+import de.unibi.agbi.biodwh2.neo4j.importer.model.GithubAsset;
+import de.unibi.agbi.biodwh2.neo4j.importer.model.GithubRelease;
+import de.unibi.agbi.biodwh2.neo4j.importer.model.Version;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.jar.Manifest;
+
+/**
+ * Checks the GitHub releases for a newer version of the importer in a background thread. The request uses strict
+ * connect and read timeouts and its result is cached in the user's home directory, so that hosts without internet
+ * access only pay for the check once per cache period.
+ */
+final class UpdateChecker {
+    private static final Logger LOGGER = LogManager.getLogger(UpdateChecker.class);
+    private static final String RELEASE_URL = "https://api.github.com/repos/BioDWH2/Neo4j-GraphML-Importer/releases";
+    private static final int TIMEOUT_MILLIS = 2000;
+    private static final long CACHE_DURATION_MILLIS = TimeUnit.HOURS.toMillis(24);
+    private static final Path CACHE_FILE_PATH = Paths.get(System.getProperty("user.home"), ".biodwh2",
+                                                          "neo4j-graphml-importer-update.properties");
+    private static final String CACHE_CHECKED_AT_KEY = "checkedAt";
+    private static final String CACHE_VERSION_KEY = "version";
+    private static final String CACHE_DOWNLOAD_URL_KEY = "downloadUrl";
+
+    private final Version currentVersion;
+    private final CompletableFuture<ReleaseInfo> mostRecentRelease;
+
+    UpdateChecker() {
+        currentVersion = getCurrentVersion();
+        mostRecentRelease = CompletableFuture.supplyAsync(this::findMostRecentRelease, runnable -> {
+            final var thread = new Thread(runnable, "update-check");
+            thread.setDaemon(true);
+            thread.start();
+        });
+    }
+
+    private Version getCurrentVersion() {
+        try {
+            final Enumeration<URL> resources = getClass().getClassLoader().getResources("META-INF/MANIFEST.MF");
+            while (resources.hasMoreElements()) {
+                try (final InputStream stream = resources.nextElement().openStream()) {
+                    final var manifest = new Manifest(stream);
+                    final Version version = Version.tryParse(manifest.getMainAttributes().getValue("BioDWH2-version"));
+                    if (version != null)
+                        return version;
+                } catch (IOException ignored) {
+                }
+            }
+        } catch (IOException ignored) {
+        }
+        return null;
+    }
+
+    private ReleaseInfo findMostRecentRelease() {
+        final ReleaseInfo cached = loadCachedRelease();
+        if (cached != null)
+            return cached;
+        final ReleaseInfo release = requestMostRecentRelease();
+        saveCachedRelease(release);
+        return release;
+    }
+
+    private ReleaseInfo loadCachedRelease() {
+        if (!Files.exists(CACHE_FILE_PATH))
+            return null;
+        final var properties = new Properties();
+        try (final InputStream stream = Files.newInputStream(CACHE_FILE_PATH)) {
+            properties.load(stream);
+            final long checkedAt = Long.parseLong(properties.getProperty(CACHE_CHECKED_AT_KEY, "0"));
+            if (System.currentTimeMillis() - checkedAt > CACHE_DURATION_MILLIS)
+                return null;
+            return new ReleaseInfo(Version.tryParse(properties.getProperty(CACHE_VERSION_KEY)),
+                                   properties.getProperty(CACHE_DOWNLOAD_URL_KEY));
+        } catch (IOException | IllegalArgumentException ignored) {
+            return null;
+        }
+    }
+
+    private void saveCachedRelease(final ReleaseInfo release) {
+        final var properties = new Properties();
+        properties.setProperty(CACHE_CHECKED_AT_KEY, String.valueOf(System.currentTimeMillis()));
+        if (release.version() != null) {
+            properties.setProperty(CACHE_VERSION_KEY, release.version().toString());
+            properties.setProperty(CACHE_DOWNLOAD_URL_KEY, release.downloadUrl());
+        }
+        try {
+            Files.createDirectories(CACHE_FILE_PATH.getParent());
+            try (final OutputStream stream = Files.newOutputStream(CACHE_FILE_PATH)) {
+                properties.store(stream, "Neo4j-GraphML-Importer update check");
+            }
+        } catch (IOException e) {
+            if (LOGGER.isDebugEnabled())
+                LOGGER.debug("Failed to cache update check result", e);
+        }
+    }
+
+    private ReleaseInfo requestMostRecentRelease() {
+        Version mostRecentVersion = null;
+        String mostRecentDownloadUrl = null;
+        final ObjectMapper mapper = new ObjectMapper();
+        try {
+            final var connection = (HttpURLConnection) new URL(RELEASE_URL).openConnection();
+            connection.setConnectTimeout(TIMEOUT_MILLIS);
+            connection.setReadTimeout(TIMEOUT_MILLIS);
+            connection.setRequestProperty("Accept", "application/vnd.github+json");
+            try (final var inputStream = connection.getInputStream()) {
+                final List<GithubRelease> releases = mapper.readValue(inputStream, new TypeReference<>() {
+                });
+                for (final GithubRelease release : releases) {
+                    final Version version = Version.tryParse(release.tagName.replace("v", ""));
+                    if (version != null) {
+                        final String jarName = "Neo4j-GraphML-Importer-" + release.tagName + ".jar";
+                        final Optional<GithubAsset> jarAsset = release.assets.stream().filter(
+                                asset -> asset.name.equalsIgnoreCase(jarName)).findFirst();
+                        if (jarAsset.isPresent() && (mostRecentVersion == null || version.compareTo(
+                                mostRecentVersion) > 0)) {
+                            mostRecentVersion = version;
+                            mostRecentDownloadUrl = jarAsset.get().browserDownloadUrl;
+                        }
+                    }
+                }
+            } finally {
+                connection.disconnect();
+            }
+        } catch (IOException | JacksonException | ClassCastException ignored) {
+        }
+        return new ReleaseInfo(mostRecentVersion, mostRecentDownloadUrl);
+    }
+
+    /**
+     * Logs a notice if a newer version is available. Waits at most for the request timeout if the background check
+     * hasn't finished yet and stays silent if no result is available by then.
+     */
+    void reportIfUpdateAvailable() {
+        final ReleaseInfo release;
+        try {
+            release = mostRecentRelease.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (ExecutionException | TimeoutException e) {
+            return;
+        }
+        final Version mostRecentVersion = release.version();
+        if (mostRecentVersion != null && (currentVersion == null || currentVersion.compareTo(mostRecentVersion) < 0)) {
+            LOGGER.info("=======================================");
+            LOGGER.info("New version {} of Neo4j-GraphML-Importer is available at:", mostRecentVersion);
+            LOGGER.info(release.downloadUrl());
+            LOGGER.info("=======================================");
+        }
+    }
+
+    private record ReleaseInfo(Version version, String downloadUrl) {
+    }
+}
@@ -40,6 +40,54 @@ public class CmdArgs {
     public String modifyEdgeLabels;
     @CommandLine.Option(names = {
             "--indices"
-    }, arity = "1", paramLabel = "<label1>.<property1>;<label2>.<property2>;...", description = "Create indices if not exist. Prefix and suffix are not automatically added to these labels!", order = 9)
+    }, arity = "1", paramLabel = "<label1>.<property1>;<label2>.<property2>,<property3>;...", description = "Create indices if not exist. Multiple comma separated properties create a composite index. Prefix and suffix are not automatically added to these labels!", order = 9)
     public String indices;
+    @CommandLine.Option(names = {
+            "--unique-indices"
+    }, arity = "1", paramLabel = "<label1>.<property1>;<label2>.<property2>,<property3>;...", description = "Create unique constraints if not exist. Same syntax as --indices", order = 10)
+    public String uniqueIndices;
+    @CommandLine.Option(names = {
+            "--index-phase"
+    }, arity = "1", paramLabel = "<before|after>", defaultValue = "after", showDefaultValue = CommandLine.Help.Visibility.ALWAYS, description = "Create indices before the import to speed up lookups or after the import to speed up writes. The import finishes once all indices are online", order = 11)
+    public IndexPhase indexPhase;
+    @CommandLine.Option(names = {
+            "--skip-update-check"
+    }, description = "Skip the check for a newer version of the importer", order = 12)
+    public boolean skipUpdateCheck;
+    @CommandLine.Option(names = {
+            "--fault-tolerant"
+    }, description = "Write every batch in its own transaction and isolate failing nodes and edges instead of aborting the import", order = 13)
+    public boolean faultTolerant;
+    @CommandLine.Option(names = {
+            "--dead-letter-file"
+    }, arity = "1", paramLabel = "<filePath>", description = "Path of the JSON lines file failed nodes and edges are written to in fault tolerant mode. Default: <graphMLFilePath>.dead-letter.jsonl", order = 14)
+    public String deadLetterFilePath;
+    @CommandLine.Option(names = {
+            "--validate"
+    }, description = "Validate the GraphML file and report errors and graph statistics instead of importing it", order = 15)
+    public boolean validate;
+    @CommandLine.Option(names = {
+            "--convert-to-cache"
+    }, arity = "1", paramLabel = "<cacheFilePath>", description = "Convert the GraphML file into a binary graph cache file instead of importing it. Cache files can be used as input for repeated imports", order = 16)
+    public String cacheFilePath;
+    @CommandLine.Option(names = {
+            "--export"
+    }, arity = "1", paramLabel = "<graphMLFilePath>", description = "Export the graph of the Neo4j endpoint into a GraphML file instead of importing. Files ending with .gz are compressed", order = 17)
+    public String exportFilePath;
+    @CommandLine.Option(names = {
+            "--threads"
+    }, arity = "1", paramLabel = "<count>", description = "Number of threads used for validation and export. Default: number of processors - 1", order = 18)
+    public Integer threads;
+    @CommandLine.Option(names = {
+            "--partitions"
+    }, arity = "1", paramLabel = "[<labelPrefix>=]<endpoint>[#<database>];...", description = "Import the graph partitioned into multiple Neo4j endpoints or databases instead of the endpoint argument", order = 19)
+    public String partitions;
+    @CommandLine.Option(names = {
+            "--partition-by"
+    }, arity = "1", paramLabel = "<hash|label-prefix>", defaultValue = "hash", description = "Rule assigning nodes to partitions. Either the hash of the node id or the first partition with a matching label prefix. Default: hash", order = 20)
+    public PartitionRule partitionBy;
+    @CommandLine.Option(names = {
+            "--cross-partition-edges"
+    }, arity = "1", paramLabel = "<filePath>", description = "Path of the JSON lines file edges between nodes of different partitions are written to. Default: <graphMLFilePath>.cross-partition-edges.jsonl", order = 21)
+    public String crossPartitionEdgesFilePath;
 }
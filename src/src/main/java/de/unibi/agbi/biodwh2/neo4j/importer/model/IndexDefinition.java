@@ -0,0 +1,14 @@
+package de.unibi.agbi.biodwh2.neo4j.importer.model;
+
+import java.util.List;
+
+public record IndexDefinition(String label, List<String> propertyKeys, boolean unique) {
+    public boolean isComposite() {
+        return propertyKeys.size() > 1;
+    }
+
+    @Override
+    public String toString() {
+        return (unique ? "unique " : "") + ":" + label + "(" + String.join(", ", propertyKeys) + ")";
+    }
+}
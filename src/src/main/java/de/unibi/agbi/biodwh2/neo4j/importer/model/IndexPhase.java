@@ -0,0 +1,6 @@
+package de.unibi.agbi.biodwh2.neo4j.importer.model;
+
+public enum IndexPhase {
+    BEFORE,
+    AFTER
+}
@@ -0,0 +1,8 @@
+package de.unibi.agbi.biodwh2.neo4j.importer.model;
+
+public record PartitionDefinition(String labelPrefix, String endpoint, String database) {
+    @Override
+    public String toString() {
+        return endpoint + (database != null ? "#" + database : "");
+    }
+}
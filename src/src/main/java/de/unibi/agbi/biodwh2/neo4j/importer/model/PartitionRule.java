@@ -0,0 +1,24 @@
+package de.unibi.agbi.biodwh2.neo4j.importer.model;
+
+public enum PartitionRule {
+    HASH("hash"),
+    LABEL_PREFIX("label-prefix");
+
+    private final String value;
+
+    PartitionRule(final String value) {
+        this.value = value;
+    }
+
+    public static PartitionRule fromValue(final String value) {
+        for (final PartitionRule rule : values())
+            if (rule.value.equalsIgnoreCase(value))
+                return rule;
+        throw new IllegalArgumentException("Unknown partition rule '" + value + "', expected hash or label-prefix");
+    }
+
+    @Override
+    public String toString() {
+        return value;
+    }
+}
@@ -0,0 +1,76 @@
+package de.unibi.agbi.biodwh2.neo4j.importer;
+
+import org.junit.jupiter.api.Test;
+import org.neo4j.driver.exceptions.ClientException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchFailureIsolatorTest {
+    private static final String TYPE_ERROR = "Neo.ClientError.Statement.TypeError";
+    private static final String FORBIDDEN = "Neo.ClientError.Security.Forbidden";
+
+    @Test
+    void validBatchIsWrittenOnce() {
+        final var writer = new FakeBatchWriter(List.of(), TYPE_ERROR);
+        final var committed = new ArrayList<List<Integer>>();
+        BatchFailureIsolator.write(range(8), writer::write, committed::add,
+                                   (element, message) -> fail("Unexpected failed element " + element));
+        assertEquals(List.of(range(8)), committed);
+        assertEquals(1, writer.calls);
+    }
+
+    @Test
+    void invalidElementsAreIsolated() {
+        final var writer = new FakeBatchWriter(List.of(2, 5), TYPE_ERROR);
+        final var committed = new ArrayList<Integer>();
+        final var failed = new LinkedHashMap<Integer, String>();
+        BatchFailureIsolator.write(range(8), writer::write, committed::addAll, failed::put);
+        assertEquals(List.of(0, 1, 3, 4, 6, 7), committed);
+        assertEquals(Map.of(2, "invalid element 2", 5, "invalid element 5"), failed);
+    }
+
+    @Test
+    void nonDataErrorIsRethrownWithoutBisection() {
+        final var writer = new FakeBatchWriter(List.of(2), FORBIDDEN);
+        final var exception = assertThrows(ClientException.class,
+                                           () -> BatchFailureIsolator.write(range(8), writer::write,
+                                                                            result -> fail("Unexpected commit"),
+                                                                            (element, message) -> fail(
+                                                                                    "Unexpected failed element")));
+        assertEquals(FORBIDDEN, exception.code());
+        assertEquals(1, writer.calls);
+    }
+
+    private static List<Integer> range(final int size) {
+        return IntStream.range(0, size).boxed().collect(Collectors.toList());
+    }
+
+    /**
+     * Rejects every batch containing an invalid element like a transaction rolled back by the server.
+     */
+    private static final class FakeBatchWriter {
+        private final List<Integer> invalidElements;
+        private final String errorCode;
+        int calls;
+
+        FakeBatchWriter(final List<Integer> invalidElements, final String errorCode) {
+            this.invalidElements = invalidElements;
+            this.errorCode = errorCode;
+        }
+
+        List<Integer> write(final List<Integer> batch) {
+            calls++;
+            for (final Integer element : batch)
+                if (invalidElements.contains(element))
+                    throw new ClientException(errorCode, "invalid element " + element);
+            return new ArrayList<>(batch);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package de.unibi.agbi.biodwh2.neo4j.importer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GraphCacheRoundTripTest {
+    private static final String GRAPHML = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <graphml xmlns="http://graphml.graphdrawing.org/xmlns">
+              <key id="name" for="node" attr.name="name" attr.type="string"/>
+              <key id="age" for="node" attr.name="age" attr.type="int"/>
+              <key id="big" for="node" attr.name="big" attr.type="long"/>
+              <key id="weight" for="node" attr.name="weight" attr.type="float"/>
+              <key id="score" for="node" attr.name="score" attr.type="double"/>
+              <key id="flag" for="node" attr.name="flag" attr.type="boolean"/>
+              <key id="tags" for="node" attr.name="tags" attr.type="string" attr.list="string"/>
+              <key id="counts" for="node" attr.name="counts" attr.type="long" attr.list="long"/>
+              <key id="since" for="edge" attr.name="since" attr.type="int"/>
+              <graph id="G" edgedefault="directed">
+                <node id="n0" labels=":Person">
+                  <data key="name">a name which is longer than the mapped window</data>
+                  <data key="age">42</data>
+                  <data key="big">9000000000</data>
+                  <data key="weight">1.5</data>
+                  <data key="score">2.25</data>
+                  <data key="flag">true</data>
+                  <data key="tags">["x", "quoted \\"y\\""]</data>
+                  <data key="counts">[1, 2, 3]</data>
+                </node>
+                <node id="n1" labels=":Person">
+                  <data key="name">b</data>
+                </node>
+                <node id="n2" labels=":Thing">
+                  <data key="age">notanumber</data>
+                  <data key="name">c</data>
+                </node>
+                <node id="n3">
+                  <data key="age">7</data>
+                </node>
+                <edge id="e0" source="n0" target="n1" label="KNOWS">
+                  <data key="since">2001</data>
+                </edge>
+                <edge id="e1" source="n3" target="n9" label="KNOWS"/>
+                <edge id="e2" source="n2" target="n3" label="HAS">
+                  <data key="since">2003</data>
+                </edge>
+              </graph>
+            </graphml>
+            """;
+
+    @TempDir
+    Path tempDirectory;
+
+    @Test
+    void convertedNodesMatchGraphML() throws IOException {
+        final List<NodeRow> nodes = readNodes(new GraphCacheReader(convert(GRAPHML)));
+        assertEquals(4, nodes.size());
+        assertEquals(new NodeRow(0, "n0", ":Person",
+                                 Map.of("name", "a name which is longer than the mapped window", "age", 42, "big",
+                                        9000000000L, "weight", 1.5f, "score", 2.25, "flag", true, "tags",
+                                        List.of("x", "quoted \"y\""), "counts", List.of(1L, 2L, 3L)), null, null),
+                     nodes.get(0));
+        assertEquals(new NodeRow(1, "n1", ":Person", Map.of("name", "b"), null, null), nodes.get(1));
+        assertEquals(new NodeRow(3, "n3", null, Map.of("age", 7), null, null), nodes.get(3));
+    }
+
+    @Test
+    void invalidValuesAreKeptAndColumnsStayAligned() throws IOException {
+        final List<NodeRow> nodes = readNodes(new GraphCacheReader(convert(GRAPHML)));
+        assertEquals(new NodeRow(2, "n2", ":Thing", Map.of("name", "c"), "age", "notanumber"), nodes.get(2));
+        assertEquals(Map.of("age", 7), nodes.get(3).properties);
+    }
+
+    @Test
+    void convertedEdgesReferenceNodeRows() throws IOException {
+        final List<EdgeRow> edges = readEdges(new GraphCacheReader(convert(GRAPHML)));
+        assertEquals(List.of(new EdgeRow("e0", "KNOWS", 0, "n0", 1, "n1", Map.of("since", 2001)),
+                             new EdgeRow("e1", "KNOWS", 3, "n3", -1, null, Map.of()),
+                             new EdgeRow("e2", "HAS", 2, "n2", 3, "n3", Map.of("since", 2003))), edges);
+    }
+
+    @Test
+    void smallWindowsReadTheSameValues() throws IOException {
+        final Path cacheFilePath = convert(GRAPHML);
+        final var reader = new GraphCacheReader(cacheFilePath);
+        final var windowedReader = new GraphCacheReader(cacheFilePath, 7);
+        assertEquals(readNodes(reader), readNodes(windowedReader));
+        assertEquals(readEdges(reader), readEdges(windowedReader));
+    }
+
+    @Test
+    void truncatedGraphMLFailsWithoutOutput() throws IOException {
+        final Path inputFilePath = tempDirectory.resolve("truncated.graphml");
+        Files.writeString(inputFilePath, GRAPHML.substring(0, GRAPHML.indexOf("<edge id=\"e1\"") + 20));
+        final Path outputFilePath = tempDirectory.resolve("truncated.cache");
+        final var writer = new GraphCacheWriter(new GraphMLReader(inputFilePath));
+        assertThrows(IOException.class, () -> writer.convert(outputFilePath));
+        try (final var files = Files.list(tempDirectory)) {
+            assertEquals(List.of(inputFilePath), files.toList());
+        }
+    }
+
+    private Path convert(final String graphML) throws IOException {
+        final Path inputFilePath = tempDirectory.resolve("graph.graphml");
+        Files.writeString(inputFilePath, graphML);
+        final Path outputFilePath = tempDirectory.resolve("graph.cache");
+        new GraphCacheWriter(new GraphMLReader(inputFilePath)).convert(outputFilePath);
+        assertTrue(GraphCacheFormat.isCacheFile(outputFilePath));
+        return outputFilePath;
+    }
+
+    private static List<NodeRow> readNodes(final GraphCacheReader reader) throws IOException {
+        final var nodes = new ArrayList<NodeRow>();
+        reader.forEachNode((row, id, labels, properties, invalidValue) -> nodes.add(
+                new NodeRow(row, id, labels, properties,
+                            invalidValue != null ? invalidValue.getPropertyKey().attributeName() : null,
+                            invalidValue != null ? invalidValue.getRawValue() : null)));
+        assertEquals(reader.getNodeCount(), nodes.size());
+        return nodes;
+    }
+
+    private static List<EdgeRow> readEdges(final GraphCacheReader reader) throws IOException {
+        final var edges = new ArrayList<EdgeRow>();
+        reader.forEachEdge((id, label, sourceRow, source, targetRow, target, properties, invalidValue) -> {
+            assertNull(invalidValue);
+            edges.add(new EdgeRow(id, label, sourceRow, source, targetRow, target, properties));
+        });
+        assertEquals(reader.getEdgeCount(), edges.size());
+        return edges;
+    }
+
+    private record NodeRow(int row, String id, String labels, Map<String, Object> properties,
+                           String invalidProperty, String invalidValue) {
+    }
+
+    private record EdgeRow(String id, String label, int sourceRow, String source, int targetRow, String target,
+                           Map<String, Object> properties) {
+    }
+}
@@ -0,0 +1,124 @@
+package de.unibi.agbi.biodwh2.neo4j.importer;
+
+import de.unibi.agbi.biodwh2.neo4j.importer.model.graphml.PropertyKey;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GraphMLExporterRoundTripTest {
+    private static final Map<String, Object> FIRST_NODE_PROPERTIES = Map.of("name", "quote \" and backslash \\",
+                                                                            "count", 42L, "score", 2.5, "flag", true,
+                                                                            "tags", List.of("a\\", "\"b\"", "c\\\"d"),
+                                                                            "numbers", List.of(1L, 2L));
+    private static final Map<String, Object> SECOND_NODE_PROPERTIES = Map.of("name", "second", "since", "yesterday");
+    private static final Map<String, Object> EDGE_PROPERTIES = Map.of("since", 2001L, "labels", "edge property");
+
+    @TempDir
+    Path tempDirectory;
+
+    @Test
+    void exportedGraphIsReadBackUnchanged() throws IOException, XMLStreamException {
+        final var exporter = new GraphMLExporter(null, 1);
+        final Path nodePartFile = tempDirectory.resolve("node-0.part");
+        writePart(exporter, nodePartFile, writer -> {
+            exporter.writeNode(writer, 0, List.of("Person", "Author"), FIRST_NODE_PROPERTIES);
+            exporter.writeNode(writer, 1, List.of("Person"), SECOND_NODE_PROPERTIES);
+        });
+        final Path edgePartFile = tempDirectory.resolve("edge-0.part");
+        writePart(exporter, edgePartFile,
+                  writer -> exporter.writeEdge(writer, 0, "KNOWS", 0, 1, EDGE_PROPERTIES));
+        final Path outputFilePath = tempDirectory.resolve("export.graphml");
+        exporter.writeGraphMLFile(outputFilePath, List.of(nodePartFile, edgePartFile));
+
+        final var graphMLReader = new GraphMLReader(outputFilePath);
+        final var readErrors = new ArrayList<String>();
+        graphMLReader.setReadErrorListener(readErrors::add);
+        final Map<String, PropertyKey> propertyKeyNameMap = graphMLReader.readPropertyKeys();
+        final var keyIds = new HashSet<String>();
+        for (final PropertyKey key : propertyKeyNameMap.values())
+            assertTrue(keyIds.add(key.id()), "Duplicate key id " + key.id());
+        assertEquals("string", propertyKeyNameMap.get("node|" + getKeyId(propertyKeyNameMap, "node", "since"))
+                                                 .attributeType());
+        assertEquals("long", propertyKeyNameMap.get("edge|" + getKeyId(propertyKeyNameMap, "edge", "since"))
+                                               .attributeType());
+
+        final var nodes = new LinkedHashMap<String, Map<String, Object>>();
+        final var nodeLabels = new ArrayList<String>();
+        graphMLReader.handleAllElementsWithTag("node", (reader, startElement) -> {
+            nodeLabels.add(GraphMLReader.getElementAttribute(startElement, "labels"));
+            nodes.put(GraphMLReader.getElementAttribute(startElement, "id"),
+                      graphMLReader.collectNodeOrEdgeProperties(reader, propertyKeyNameMap, "node"));
+        });
+        final var edges = new ArrayList<Map<String, Object>>();
+        final var edgeAttributes = new ArrayList<List<String>>();
+        graphMLReader.handleAllElementsWithTag("edge", (reader, startElement) -> {
+            edgeAttributes.add(List.of(GraphMLReader.getElementAttribute(startElement, "source"),
+                                       GraphMLReader.getElementAttribute(startElement, "target"),
+                                       GraphMLReader.getElementAttribute(startElement, "label")));
+            edges.add(graphMLReader.collectNodeOrEdgeProperties(reader, propertyKeyNameMap, "edge"));
+        });
+
+        assertEquals(List.of(), readErrors);
+        assertEquals(Map.of("n0", FIRST_NODE_PROPERTIES, "n1", SECOND_NODE_PROPERTIES), nodes);
+        assertEquals(List.of(":Person:Author", ":Person"), nodeLabels);
+        assertEquals(List.of(List.of("n0", "n1", "KNOWS")), edgeAttributes);
+        // The importer skips properties named like the label keys, so only the label key itself may use the name
+        assertEquals(List.of(Map.of("since", 2001L)), edges);
+    }
+
+    @Test
+    void listsAreReadBackWithTheirFinalKeyType() throws IOException, XMLStreamException {
+        final var exporter = new GraphMLExporter(null, 1);
+        final Path nodePartFile = tempDirectory.resolve("node-0.part");
+        writePart(exporter, nodePartFile, writer -> {
+            exporter.writeNode(writer, 0, List.of("A"), Map.of("dates", List.of(LocalDate.of(2020, 1, 1)), "widened",
+                                                              List.of(1L, 2L), "mixed", List.of(1L, "x", true),
+                                                              "numbers", List.of(1L, 2L), "flags", List.of(true)));
+            exporter.writeNode(writer, 1, List.of("A"), Map.of("widened", List.of("a"), "numbers", List.of(2.5),
+                                                              "bytes", new byte[]{1, 2, 3}));
+        });
+        final Path outputFilePath = tempDirectory.resolve("export.graphml");
+        exporter.writeGraphMLFile(outputFilePath, List.of(nodePartFile));
+
+        final var graphMLReader = new GraphMLReader(outputFilePath);
+        final Map<String, PropertyKey> propertyKeyNameMap = graphMLReader.readPropertyKeys();
+        final var nodes = new ArrayList<Map<String, Object>>();
+        graphMLReader.handleAllElementsWithTag("node", (reader, startElement) -> nodes.add(
+                graphMLReader.collectNodeOrEdgeProperties(reader, propertyKeyNameMap, "node")));
+        assertEquals(List.of(Map.of("dates", List.of("2020-01-01"), "widened", List.of("1", "2"), "mixed",
+                                    List.of("1", "x", "true"), "numbers", List.of(1.0, 2.0), "flags", List.of(true)),
+                             Map.of("widened", List.of("a"), "numbers", List.of(2.5), "bytes", "AQID")), nodes);
+    }
+
+    private static String getKeyId(final Map<String, PropertyKey> propertyKeyNameMap, final String forType,
+                                   final String name) {
+        return propertyKeyNameMap.values().stream().filter(
+                key -> key.forType().equals(forType) && key.attributeName().equals(name)).findFirst().orElseThrow()
+                                 .id();
+    }
+
+    private static void writePart(final GraphMLExporter exporter, final Path partFile,
+                                  final PartContent content) throws IOException, XMLStreamException {
+        try (final Writer fileWriter = Files.newBufferedWriter(partFile, StandardCharsets.UTF_8)) {
+            final XMLStreamWriter writer = exporter.createPartWriter(fileWriter);
+            content.write(writer);
+            writer.flush();
+            writer.close();
+        }
+    }
+
+    private interface PartContent {
+        void write(XMLStreamWriter writer) throws XMLStreamException;
+    }
+}
@@ -0,0 +1,116 @@
+package de.unibi.agbi.biodwh2.neo4j.importer;
+
+import de.unibi.agbi.biodwh2.neo4j.importer.GraphValidator.IssueType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GraphValidatorTest {
+    private static final String HEADER = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <graphml xmlns="http://graphml.graphdrawing.org/xmlns">
+              <key id="name" for="node" attr.name="name" attr.type="string"/>
+              <key id="age" for="node" attr.name="age" attr.type="int"/>
+              <key id="flag" for="node" attr.name="flag" attr.type="boolean"/>
+              <key id="flags" for="node" attr.name="flags" attr.type="boolean" attr.list="boolean"/>
+              <key id="numbers" for="node" attr.name="numbers" attr.type="long" attr.list="long"/>
+              <key id="since" for="edge" attr.name="since" attr.type="int"/>
+              <graph id="G" edgedefault="directed">
+            """;
+    private static final String FOOTER = """
+              </graph>
+            </graphml>
+            """;
+
+    @TempDir
+    Path tempDirectory;
+
+    @Test
+    void validGraphHasNoIssues() throws IOException {
+        final GraphValidator validator = createValidator(HEADER + """
+                <node id="n0" labels=":Person">
+                  <data key="name">a</data>
+                  <data key="age">42</data>
+                  <data key="flag">TRUE</data>
+                  <data key="flags">[true, "false"]</data>
+                  <data key="numbers">["1", 2]</data>
+                </node>
+                <node id="n1" labels=":Person"/>
+                <edge id="e0" source="n0" target="n1" label="KNOWS">
+                  <data key="since">2001</data>
+                </edge>
+                """ + FOOTER);
+        assertTrue(validator.validate());
+        for (final IssueType type : IssueType.values())
+            assertEquals(0, validator.getIssueCount(type), type.description);
+    }
+
+    @Test
+    void invalidNodeIdsAreReported() throws IOException {
+        final GraphValidator validator = createValidator(HEADER + """
+                <node id="n0" labels=":Person"/>
+                <node id="n0" labels=":Person"/>
+                <node labels=":Person"/>
+                """ + FOOTER);
+        assertFalse(validator.validate());
+        assertEquals(1, validator.getIssueCount(IssueType.DUPLICATE_NODE_ID));
+        assertEquals(1, validator.getIssueCount(IssueType.MISSING_NODE_ID));
+    }
+
+    @Test
+    void danglingEdgesAreReported() throws IOException {
+        final GraphValidator validator = createValidator(HEADER + """
+                <node id="n0" labels=":Person"/>
+                <edge id="e0" source="n9" target="n0" label="KNOWS"/>
+                <edge id="e1" source="n0" target="n8" label="KNOWS"/>
+                <edge id="e2" source="n7" label="KNOWS"/>
+                """ + FOOTER);
+        assertFalse(validator.validate());
+        assertEquals(2, validator.getIssueCount(IssueType.MISSING_EDGE_SOURCE));
+        assertEquals(2, validator.getIssueCount(IssueType.MISSING_EDGE_TARGET));
+    }
+
+    @Test
+    void undefinedKeysAndTypeMismatchesAreReported() throws IOException {
+        final GraphValidator validator = createValidator(HEADER + """
+                <node id="n0" labels=":Person">
+                  <data key="undeclared">x</data>
+                  <data key="age">notanumber</data>
+                  <data key="flag">yes</data>
+                  <data key="flags">[yes, no]</data>
+                  <data key="numbers">[1, two]</data>
+                </node>
+                <node id="n1" labels=":Person"/>
+                <edge id="e0" source="n0" target="n1" label="KNOWS">
+                  <data key="since">1.5</data>
+                  <data key="name">edge property declared only for nodes</data>
+                </edge>
+                """ + FOOTER);
+        assertFalse(validator.validate());
+        assertEquals(2, validator.getIssueCount(IssueType.UNDEFINED_PROPERTY_KEY));
+        assertEquals(5, validator.getIssueCount(IssueType.VALUE_TYPE_MISMATCH));
+    }
+
+    @Test
+    void truncatedFileFailsValidation() throws IOException {
+        final String graphML = HEADER + """
+                <node id="n0" labels=":Person">
+                  <data key="name">a</data>
+                </node>
+                <node id="n1" labels=":Per""";
+        final GraphValidator validator = createValidator(graphML);
+        assertFalse(validator.validate());
+        assertTrue(validator.getIssueCount(IssueType.READ_ERROR) > 0);
+    }
+
+    private GraphValidator createValidator(final String graphML) throws IOException {
+        final Path filePath = tempDirectory.resolve("graph.graphml");
+        Files.writeString(filePath, graphML);
+        return new GraphValidator(new GraphMLReader(filePath), 2);
+    }
+}
@@ -0,0 +1,62 @@
+package de.unibi.agbi.biodwh2.neo4j.importer;
+
+import de.unibi.agbi.biodwh2.neo4j.importer.model.PartitionDefinition;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PartitioningTest {
+    @Test
+    void partitionsAreParsedWithLabelPrefixAndDatabase() {
+        assertEquals(List.of(new PartitionDefinition("DrugBank", "bolt://localhost:7687", "drugbank"),
+                             new PartitionDefinition("UniProt", "neo4j://host2:7687", null),
+                             new PartitionDefinition(null, "bolt://host3:7687", "other")),
+                     Partitioning.parsePartitions(" :DrugBank = bolt://localhost:7687#drugbank;" +
+                                                  "UniProt=neo4j://host2:7687; bolt://host3:7687 # other "));
+    }
+
+    @Test
+    void equalsSignAfterSchemeIsPartOfEndpoint() {
+        assertEquals(List.of(new PartitionDefinition(null, "bolt://host:7687?a=b", null)),
+                     Partitioning.parsePartitions("bolt://host:7687?a=b"));
+    }
+
+    @Test
+    void partitionsWithoutEndpointAreIgnored() {
+        assertEquals(List.of(new PartitionDefinition(null, "bolt://host:7687", null)),
+                     Partitioning.parsePartitions("Prefix=;#database;bolt://host:7687;"));
+    }
+
+    @Test
+    void hashPartitionIsStableAndInRange() {
+        for (final String nodeId : List.of("n0", "n1", "some-node", "-1", ""))
+            assertEquals(Math.floorMod(nodeId.hashCode(), 3), Partitioning.getHashPartition(3, nodeId));
+        assertEquals(0, Partitioning.getHashPartition(3, null));
+        assertEquals(0, Partitioning.getHashPartition(1, "n0"));
+    }
+
+    @Test
+    void labelPrefixSelectsFirstMatchingPartition() {
+        final List<PartitionDefinition> partitions = List.of(
+                new PartitionDefinition("DrugBank", "bolt://a", null), new PartitionDefinition(null, "bolt://b", null),
+                new PartitionDefinition("UniProt", "bolt://c", null), new PartitionDefinition(null, "bolt://d", null),
+                new PartitionDefinition("Uni", "bolt://e", null));
+        assertEquals(0, Partitioning.getLabelPrefixPartition(partitions, ":DrugBankDrug"));
+        assertEquals(2, Partitioning.getLabelPrefixPartition(partitions, ":Other:`UniProtProtein`"));
+        assertEquals(0, Partitioning.getLabelPrefixPartition(partitions, ":UniProtProtein:DrugBankTarget"));
+        assertEquals(4, Partitioning.getLabelPrefixPartition(partitions, ":UniRef"));
+        assertEquals(1, Partitioning.getLabelPrefixPartition(partitions, ":Other"));
+        assertEquals(1, Partitioning.getLabelPrefixPartition(partitions, null));
+    }
+
+    @Test
+    void labelPrefixWithoutDefaultPartitionSkipsUnmatchedNodes() {
+        final List<PartitionDefinition> partitions = List.of(new PartitionDefinition("DrugBank", "bolt://a", null),
+                                                             new PartitionDefinition("UniProt", "bolt://b", null));
+        assertEquals(1, Partitioning.getLabelPrefixPartition(partitions, ":UniProtProtein"));
+        assertEquals(-1, Partitioning.getLabelPrefixPartition(partitions, ":Other"));
+        assertEquals(-1, Partitioning.getLabelPrefixPartition(partitions, ""));
+    }
+}